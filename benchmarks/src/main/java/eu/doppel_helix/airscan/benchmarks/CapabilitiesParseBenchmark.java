@@ -0,0 +1,83 @@
+/*
+ * Copyright 2026 Matthias Bläsing
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.doppel_helix.airscan.benchmarks;
+
+import eu.doppel_helix.airscan.Capabilities;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Parsing of {@code ScannerCapabilities} documents as returned by devices of
+ * different vendors and reading them back from the capabilities cache.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CapabilitiesParseBenchmark {
+
+    @Param({"hp", "canon", "brother", "epson"})
+    public String vendor;
+
+    private byte[] document;
+    private byte[] cached;
+
+    @Setup
+    public void setup() throws IOException {
+        document = Fixtures.resource("caps-" + vendor + ".xml");
+        Capabilities capabilities = parseCapabilities();
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        try (DataOutputStream dos = new DataOutputStream(baos)) {
+            capabilities.writeTo(dos);
+        }
+        cached = baos.toByteArray();
+    }
+
+    @Benchmark
+    public Capabilities parseCapabilities() throws IOException {
+        Capabilities capabilities = new Capabilities();
+        try (InputStream is = new ByteArrayInputStream(document)) {
+            capabilities.parse(is, false);
+        }
+        return capabilities;
+    }
+
+    @Benchmark
+    public Capabilities readCached() throws IOException {
+        try (DataInputStream dis = new DataInputStream(new ByteArrayInputStream(cached))) {
+            return Capabilities.readFrom(dis);
+        }
+    }
+}
@@ -0,0 +1,78 @@
+/*
+ * Copyright 2026 Matthias Bläsing
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.doppel_helix.airscan.benchmarks;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+/**
+ * Test data shared by the benchmarks.
+ */
+final class Fixtures {
+
+    private Fixtures() {
+    }
+
+    /**
+     * @param name resource next to this class
+     * @return the content of the resource
+     * @throws IOException
+     */
+    static byte[] resource(String name) throws IOException {
+        try (InputStream is = Fixtures.class.getResourceAsStream(name)) {
+            if (is == null) {
+                throw new IOException("Missing fixture " + name);
+            }
+            return is.readAllBytes();
+        }
+    }
+
+    /**
+     * Encode the entries as DNS TXT record (length prefixed strings).
+     *
+     * @param entries
+     * @return
+     */
+    static byte[] txtRecord(String... entries) {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        for (String entry : entries) {
+            byte[] data = entry.getBytes(StandardCharsets.UTF_8);
+            if (data.length > 255) {
+                throw new IllegalArgumentException("TXT entry too long: " + entry);
+            }
+            baos.write(data.length);
+            baos.write(data, 0, data.length);
+        }
+        return baos.toByteArray();
+    }
+
+    /**
+     * Pseudo random data standing in for a compressed page, it does not
+     * compress any further on the way.
+     *
+     * @param size
+     * @return
+     */
+    static byte[] page(int size) {
+        byte[] data = new byte[size];
+        new Random(size).nextBytes(data);
+        return data;
+    }
+}
@@ -0,0 +1,88 @@
+/*
+ * Copyright 2026 Matthias Bläsing
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.doppel_helix.airscan.benchmarks;
+
+import eu.doppel_helix.airscan.Capabilities;
+import eu.doppel_helix.airscan.ScanEngine;
+import eu.doppel_helix.airscan.ScanRegion;
+import eu.doppel_helix.airscan.ScanRequest;
+import eu.doppel_helix.airscan.ScanSettings;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Building of scan jobs: negotiation of the settings from the capabilities
+ * and serialization of the {@code ScanSettings} request body.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ScanSettingsBenchmark {
+
+    @Param({"1", "4"})
+    public int regions;
+
+    private ScanEngine engine;
+    private Capabilities capabilities;
+    private ScanRequest request;
+    private ScanSettings settings;
+
+    @Setup
+    public void setup() throws IOException {
+        engine = new ScanEngine(false, false, 0, Duration.ofSeconds(10), Duration.ofSeconds(120));
+        capabilities = new Capabilities();
+        capabilities.parse(new ByteArrayInputStream(Fixtures.resource("caps-hp.xml")), false);
+        request = new ScanRequest();
+        request.setResolution(300);
+        for (int i = 0; i < regions; i++) {
+            request.getRegions().add(new ScanRegion(0, i * 800, 2550, 750));
+        }
+        settings = createSettings();
+    }
+
+    @TearDown
+    public void tearDown() {
+        engine.close();
+    }
+
+    @Benchmark
+    public ScanSettings createSettings() {
+        return engine.createSettings(capabilities, request);
+    }
+
+    @Benchmark
+    public String toXml() {
+        return settings.toXml();
+    }
+}
@@ -0,0 +1,157 @@
+/*
+ * Copyright 2026 Matthias Bläsing
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.doppel_helix.airscan.benchmarks;
+
+import com.sun.net.httpserver.HttpServer;
+import eu.doppel_helix.airscan.AtomicFile;
+import eu.doppel_helix.airscan.EsclClient;
+import eu.doppel_helix.airscan.SyncPolicy;
+import eu.doppel_helix.airscan.TransferWatchdog;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Transfer of a page from {@code NextDocument} to its destination. The page
+ * is served by a local HTTP server, so the numbers show the client side
+ * overhead: the HTTP client, the {@link TransferWatchdog} and writing the
+ * page through {@link AtomicFile}.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TransferBenchmark {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    /**
+     * Page size in bytes: a grayscale A4 page at 300 dpi and a color page
+     * at 600 dpi.
+     */
+    @Param({"1048576", "8388608"})
+    public int pageSize;
+
+    private HttpServer server;
+    private ExecutorService serverExecutor;
+    private EsclClient client;
+    private URI job;
+    private TransferWatchdog watchdog;
+    private Path outputFile;
+    private byte[] buffer;
+
+    @Setup
+    public void setup() throws IOException {
+        byte[] page = Fixtures.page(pageSize);
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        serverExecutor = Executors.newFixedThreadPool(2);
+        server.setExecutor(serverExecutor);
+        server.createContext("/eSCL/ScanJobs/1/NextDocument", exchange -> {
+            exchange.getResponseHeaders().add("Content-Type", "image/jpeg");
+            exchange.sendResponseHeaders(200, page.length);
+            try (OutputStream os = exchange.getResponseBody()) {
+                os.write(page);
+            }
+        });
+        server.start();
+        String baseUrl = "http://127.0.0.1:" + server.getAddress().getPort() + "/eSCL/";
+        client = new EsclClient(baseUrl, Duration.ofSeconds(10), Duration.ofSeconds(120), false);
+        job = client.resolve("ScanJobs/1");
+        watchdog = new TransferWatchdog(Duration.ofSeconds(120), 1024, Duration.ofSeconds(30));
+        outputFile = Files.createTempFile("airscan-benchmark", ".jpg");
+        buffer = new byte[BUFFER_SIZE];
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        watchdog.close();
+        server.stop(0);
+        serverExecutor.shutdownNow();
+        Files.deleteIfExists(outputFile);
+    }
+
+    @Benchmark
+    public long transfer() throws IOException {
+        try (InputStream is = nextDocument()) {
+            return drain(is);
+        }
+    }
+
+    @Benchmark
+    public long transferWatched() throws IOException {
+        try (InputStream is = watchdog.watch(nextDocument())) {
+            return drain(is);
+        }
+    }
+
+    @Benchmark
+    public long transferToFile() throws IOException {
+        long total = 0;
+        try (InputStream is = watchdog.watch(nextDocument());
+            AtomicFile file = new AtomicFile(outputFile, SyncPolicy.NONE)) {
+            int read;
+            while ((read = is.read(buffer)) >= 0) {
+                file.write(buffer, 0, read);
+                total += read;
+            }
+            file.commit();
+        }
+        return total;
+    }
+
+    private InputStream nextDocument() throws IOException {
+        HttpResponse<InputStream> response = EsclClient.await(client.nextDocumentAsync(job));
+        if (response.statusCode() != 200) {
+            response.body().close();
+            throw new IOException("Unexpected status " + response.statusCode());
+        }
+        return response.body();
+    }
+
+    private long drain(InputStream is) throws IOException {
+        long total = 0;
+        int read;
+        while ((read = is.read(buffer)) >= 0) {
+            total += read;
+        }
+        return total;
+    }
+}
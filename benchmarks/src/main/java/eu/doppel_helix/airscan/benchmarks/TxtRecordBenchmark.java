@@ -0,0 +1,115 @@
+/*
+ * Copyright 2026 Matthias Bläsing
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.doppel_helix.airscan.benchmarks;
+
+import eu.doppel_helix.airscan.MDNSUtil;
+import eu.doppel_helix.airscan.TxtRecord;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Parsing of {@code _uscan._tcp} TXT records as announced during discovery.
+ * The {@code long} record contains an entry longer than 127 bytes, which
+ * needs the length byte to be read unsigned. {@code parseTxt} decodes the
+ * whole record, the other benchmarks show the lookups done while matching
+ * services, which should not allocate.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TxtRecordBenchmark {
+
+    @Param({"short", "typical", "long"})
+    public String record;
+
+    private byte[] data;
+
+    @Setup
+    public void setup() {
+        switch (record) {
+            case "short":
+                data = Fixtures.txtRecord("txtvers=1", "rs=eSCL", "ty=EPSON ET-2750 Series");
+                break;
+            case "typical":
+                data = Fixtures.txtRecord(
+                    "txtvers=1",
+                    "ty=HP OfficeJet Pro 9010 series",
+                    "adminurl=http://HP3C2AF4123456.local./#hId-pgAirPrint",
+                    "representation=http://HP3C2AF4123456.local./ipp/images/printer.png",
+                    "note=",
+                    "rs=eSCL",
+                    "vers=2.63",
+                    "pdl=application/pdf,image/jpeg",
+                    "UUID=4509a320-00a0-008f-00b6-002507510eca",
+                    "cs=binary,grayscale,color",
+                    "is=platen,adf",
+                    "duplex=T");
+                break;
+            case "long":
+                data = Fixtures.txtRecord(
+                    "txtvers=1",
+                    "ty=Brother MFC-L2750DW series",
+                    "adminurl=http://BRN3C2AF4123456.local./net/net/airprint.html",
+                    "representation=http://BRN3C2AF4123456.local./icons/device-icons-128.png?model=MFC-L2750DW&serial=E78301K9N123456&variant=color&size=large",
+                    "note=Second floor, copy room next to the kitchen, please refill paper tray 2 after large jobs",
+                    "rs=eSCL",
+                    "vers=2.62",
+                    "pdl=application/pdf,image/jpeg,image/pwg-raster,application/octet-stream,image/urf,application/vnd.hp-PCL,application/PCLm",
+                    "UUID=e3248000-80ce-11db-8000-3c2af4123456",
+                    "cs=binary,grayscale,color",
+                    "is=platen,adf",
+                    "duplex=F");
+                break;
+            default:
+                throw new IllegalArgumentException(record);
+        }
+    }
+
+    @Benchmark
+    public Map<String, String> parseTxt() {
+        return MDNSUtil.parseTxt(data);
+    }
+
+    @Benchmark
+    public boolean containsKey() {
+        return new TxtRecord(data).contains("rs");
+    }
+
+    @Benchmark
+    public boolean missingKey() {
+        return new TxtRecord(data).contains("mdl");
+    }
+
+    @Benchmark
+    public String getValue() {
+        return new TxtRecord(data).get("uuid");
+    }
+}
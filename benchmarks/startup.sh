@@ -0,0 +1,80 @@
+#!/bin/sh
+#
+# Copyright 2026 Matthias Bläsing
+#
+# Licensed under the Apache License, Version 2.0 (the "License");
+# you may not use this file except in compliance with the License.
+# You may obtain a copy of the License at
+#
+#     http://www.apache.org/licenses/LICENSE-2.0
+#
+# Unless required by applicable law or agreed to in writing, software
+# distributed under the License is distributed on an "AS IS" BASIS,
+# WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+# See the License for the specific language governing permissions and
+# limitations under the License.
+#
+
+# Startup time of the CLI with the plain JVM, with the AppCDS archive and as
+# native executable. Build the variants first:
+#
+#   mvn -Pappcds package         (target/airscan-cli.jar, target/airscan-cli.jsa)
+#   mvn -Pnative package         (target/airscan, requires GraalVM)
+#
+# Usage: benchmarks/startup.sh [runs] [airscan arguments...]
+# The default arguments (--help) measure pure startup, pass for example
+# "-u http://scanner/eSCL/ -i" to include a capabilities query.
+
+cd "$(dirname "$0")/.." || exit 1
+
+RUNS=${1:-20}
+[ $# -gt 0 ] && shift
+[ $# -eq 0 ] && set -- --help
+
+JAVA=${JAVA_HOME:+$JAVA_HOME/bin/}java
+JAR=$(pwd)/target/airscan-cli.jar
+JSA=$(pwd)/target/airscan-cli.jsa
+NATIVE=$(pwd)/target/airscan
+
+now_ms() {
+    date +%s%3N
+}
+
+measure() {
+    label=$1
+    shift
+    # Warm the page cache
+    "$@" > /dev/null 2>&1
+    total=0
+    min=
+    i=0
+    while [ $i -lt "$RUNS" ]; do
+        start=$(now_ms)
+        "$@" > /dev/null 2>&1
+        elapsed=$(($(now_ms) - start))
+        total=$((total + elapsed))
+        if [ -z "$min" ] || [ "$elapsed" -lt "$min" ]; then
+            min=$elapsed
+        fi
+        i=$((i + 1))
+    done
+    printf '%20s: avg %5d ms, min %5d ms (%d runs)\n' "$label" $((total / RUNS)) "$min" "$RUNS"
+}
+
+if [ ! -f "$JAR" ]; then
+    echo "$JAR not found, run mvn package first" >&2
+    exit 1
+fi
+
+measure "JVM" "$JAVA" -Xshare:auto -jar "$JAR" "$@"
+measure "JVM (TieredStop=1)" "$JAVA" -XX:TieredStopAtLevel=1 -jar "$JAR" "$@"
+if [ -f "$JSA" ]; then
+    measure "JVM + AppCDS" "$JAVA" -XX:SharedArchiveFile="$JSA" -XX:TieredStopAtLevel=1 -jar "$JAR" "$@"
+else
+    echo "$JSA not found, skipping AppCDS (mvn -Pappcds package)"
+fi
+if [ -x "$NATIVE" ]; then
+    measure "native-image" "$NATIVE" "$@"
+else
+    echo "$NATIVE not found, skipping native-image (mvn -Pnative package)"
+fi
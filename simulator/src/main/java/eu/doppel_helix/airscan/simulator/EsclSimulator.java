@@ -0,0 +1,412 @@
+/*
+ * Copyright 2026 Matthias Bläsing
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.doppel_helix.airscan.simulator;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.Closeable;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import javax.jmdns.JmDNS;
+import javax.jmdns.ServiceInfo;
+
+/**
+ * eSCL scanner simulation on top of the JDK HTTP server. Supports the
+ * requests airscan-cli issues:
+ *
+ * <pre>
+ * GET    /eSCL/ScannerCapabilities           configured capabilities, with ETag
+ * GET    /eSCL/ScannerStatus                 scanner state and all jobs
+ * POST   /eSCL/ScanJobs                      create a job, 201 with Location
+ * GET    /eSCL/ScanJobs/{id}/NextDocument    next page, 404 after the last page
+ * DELETE /eSCL/ScanJobs/{id}                 cancel the job
+ * </pre>
+ *
+ * <p>
+ * Pages are generated by {@link PageGenerator}, the transfer is throttled to
+ * the configured bandwidth. Finished jobs are kept for
+ * {@value #JOB_RETENTION_SECONDS} seconds so that they show up in the
+ * status.</p>
+ */
+public class EsclSimulator implements Closeable {
+
+    private static final String SERVICE_TYPE = "_uscan._tcp.local.";
+    private static final long JOB_RETENTION_SECONDS = 300;
+    private static final Pattern FEEDER = Pattern.compile("<[^>]*InputSource>\\s*Feeder\\s*<");
+    private static final Pattern JOB_PATH = Pattern.compile("/eSCL/ScanJobs/([^/]+)(/NextDocument)?/?");
+
+    private final SimulatorConfig config;
+    private final String uuid = UUID.randomUUID().toString();
+    private final byte[] capabilities;
+    private final String capabilitiesEtag;
+    private final PageGenerator pages;
+    private final ConcurrentMap<String, Job> jobs = new ConcurrentHashMap<>();
+    private final AtomicLong jobCounter = new AtomicLong();
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong busyResponses = new AtomicLong();
+    private final AtomicLong pagesSent = new AtomicLong();
+    private final AtomicLong bytesSent = new AtomicLong();
+    private HttpServer server;
+    private ExecutorService executor;
+    private JmDNS jmdns;
+
+    /**
+     * @param config
+     * @throws IOException if the capabilities file can not be read
+     */
+    public EsclSimulator(SimulatorConfig config) throws IOException {
+        this.config = config;
+        if (config.getCapabilitiesFile() != null) {
+            capabilities = Files.readAllBytes(config.getCapabilitiesFile());
+        } else {
+            try (InputStream is = EsclSimulator.class.getResourceAsStream("ScannerCapabilities.xml")) {
+                capabilities = is.readAllBytes();
+            }
+        }
+        capabilitiesEtag = etag(capabilities);
+        pages = new PageGenerator(config.getPageSize());
+    }
+
+    /**
+     * Start listening and, if configured, advertise the simulator.
+     *
+     * @throws IOException
+     */
+    public void start() throws IOException {
+        server = HttpServer.create(new InetSocketAddress(config.getBindAddress(), config.getPort()), 0);
+        server.createContext("/eSCL/", this::handle);
+        executor = Executors.newCachedThreadPool(r -> {
+            Thread thread = new Thread(r, "escl-simulator");
+            thread.setDaemon(true);
+            return thread;
+        });
+        server.setExecutor(executor);
+        server.start();
+        if (config.isMdns()) {
+            register();
+        }
+    }
+
+    private void register() throws IOException {
+        Map<String, String> txt = new LinkedHashMap<>();
+        txt.put("txtvers", "1");
+        txt.put("ty", config.getName());
+        txt.put("rs", "eSCL");
+        txt.put("vers", "2.6");
+        txt.put("pdl", "application/pdf,image/jpeg");
+        txt.put("uuid", uuid);
+        txt.put("cs", "color,grayscale,binary");
+        txt.put("is", "platen,adf");
+        InetAddress address = InetAddress.getByName(config.getBindAddress());
+        jmdns = address.isAnyLocalAddress() ? JmDNS.create() : JmDNS.create(address);
+        jmdns.registerService(ServiceInfo.create(SERVICE_TYPE, config.getName(), getPort(), 0, 0, txt));
+    }
+
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    /**
+     * @return URL to pass to airscan-cli
+     */
+    public String getBaseUrl() {
+        String host = server.getAddress().getAddress().isAnyLocalAddress()
+            ? "127.0.0.1"
+            : server.getAddress().getHostString();
+        return String.format("http://%s:%d/eSCL/", host, getPort());
+    }
+
+    public long getRequests() {
+        return requests.get();
+    }
+
+    public long getBusyResponses() {
+        return busyResponses.get();
+    }
+
+    public long getPagesSent() {
+        return pagesSent.get();
+    }
+
+    public long getBytesSent() {
+        return bytesSent.get();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try {
+            requests.incrementAndGet();
+            byte[] body = exchange.getRequestBody().readAllBytes();
+            if (!config.getLatency().isZero()) {
+                Thread.sleep(config.getLatency().toMillis());
+            }
+            String method = exchange.getRequestMethod();
+            String path = exchange.getRequestURI().getPath();
+            if ("GET".equals(method) && "/eSCL/ScannerCapabilities".equals(path)) {
+                handleCapabilities(exchange);
+                return;
+            }
+            if ("GET".equals(method) && "/eSCL/ScannerStatus".equals(path)) {
+                send(exchange, 200, "text/xml", status().getBytes(StandardCharsets.UTF_8));
+                return;
+            }
+            if ("POST".equals(method) && "/eSCL/ScanJobs".equals(path)) {
+                handleCreate(exchange, new String(body, StandardCharsets.UTF_8));
+                return;
+            }
+            Matcher m = JOB_PATH.matcher(path);
+            Job job = m.matches() ? jobs.get(m.group(1)) : null;
+            if (job == null) {
+                send(exchange, 404, null, null);
+            } else if ("GET".equals(method) && m.group(2) != null) {
+                handleNextDocument(exchange, job);
+            } else if ("DELETE".equals(method) && m.group(2) == null) {
+                job.finish("Canceled");
+                send(exchange, 200, null, null);
+            } else {
+                send(exchange, 405, null, null);
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private void handleCapabilities(HttpExchange exchange) throws IOException {
+        exchange.getResponseHeaders().set("ETag", capabilitiesEtag);
+        if (capabilitiesEtag.equals(exchange.getRequestHeaders().getFirst("If-None-Match"))) {
+            send(exchange, 304, null, null);
+        } else {
+            send(exchange, 200, "text/xml", capabilities);
+        }
+    }
+
+    private void handleCreate(HttpExchange exchange, String settings) throws IOException {
+        expireJobs();
+        if (config.getMaxJobs() > 0
+            && jobs.values().stream().filter(j -> !j.isFinished()).count() >= config.getMaxJobs()) {
+            sendBusy(exchange);
+            return;
+        }
+        int pageCount = FEEDER.matcher(settings).find() ? config.getPages() : 1;
+        Job job = new Job(Long.toString(jobCounter.incrementAndGet()), pageCount, config.getBusyResponses());
+        jobs.put(job.id, job);
+        exchange.getResponseHeaders().set("Location", "/eSCL/ScanJobs/" + job.id);
+        send(exchange, 201, null, null);
+    }
+
+    private void handleNextDocument(HttpExchange exchange, Job job) throws IOException, InterruptedException {
+        int number;
+        synchronized (job) {
+            if (job.isFinished() || job.delivered >= job.pages) {
+                job.finish("Completed");
+                send(exchange, 404, null, null);
+                return;
+            }
+            if (job.busyLeft > 0) {
+                job.busyLeft--;
+                sendBusy(exchange);
+                return;
+            }
+            job.delivered++;
+            number = job.delivered;
+        }
+        long size = pages.size(number);
+        exchange.getResponseHeaders().set("Content-Type", "image/jpeg");
+        exchange.sendResponseHeaders(200, size);
+        try (OutputStream os = config.getBandwidth() > 0
+            ? new ThrottledOutputStream(exchange.getResponseBody(), config.getBandwidth())
+            : exchange.getResponseBody()) {
+            pages.write(number, os);
+        }
+        if (number >= job.pages) {
+            job.finish("Completed");
+        }
+        pagesSent.incrementAndGet();
+        bytesSent.addAndGet(size);
+    }
+
+    private void sendBusy(HttpExchange exchange) throws IOException {
+        busyResponses.incrementAndGet();
+        if (config.getRetryAfter() > 0) {
+            exchange.getResponseHeaders().set("Retry-After", Long.toString(config.getRetryAfter()));
+        }
+        send(exchange, 503, null, null);
+    }
+
+    private String status() {
+        expireJobs();
+        boolean busy = jobs.values().stream().anyMatch(j -> !j.isFinished());
+        StringBuilder sb = new StringBuilder();
+        sb.append("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n");
+        sb.append("<scan:ScannerStatus xmlns:scan=\"http://schemas.hp.com/imaging/escl/2011/05/03\""
+            + " xmlns:pwg=\"http://www.pwg.org/schemas/2010/12/sm\">\n");
+        sb.append("  <pwg:Version>2.6</pwg:Version>\n");
+        sb.append("  <pwg:State>").append(busy ? "Processing" : "Idle").append("</pwg:State>\n");
+        sb.append("  <scan:AdfState>ScannerAdfLoaded</scan:AdfState>\n");
+        sb.append("  <scan:Jobs>\n");
+        long now = System.nanoTime();
+        for (Job job : jobs.values()) {
+            synchronized (job) {
+                sb.append("    <scan:JobInfo>\n");
+                sb.append("      <pwg:JobUri>/eSCL/ScanJobs/").append(job.id).append("</pwg:JobUri>\n");
+                sb.append("      <pwg:JobUuid>").append(job.uuid).append("</pwg:JobUuid>\n");
+                sb.append("      <scan:Age>").append(TimeUnit.NANOSECONDS.toSeconds(now - job.created)).append("</scan:Age>\n");
+                sb.append("      <pwg:ImagesCompleted>").append(job.delivered).append("</pwg:ImagesCompleted>\n");
+                sb.append("      <pwg:ImagesToTransfer>").append(job.isFinished() ? 0 : job.pages - job.delivered).append("</pwg:ImagesToTransfer>\n");
+                sb.append("      <pwg:JobState>").append(job.state).append("</pwg:JobState>\n");
+                sb.append("      <pwg:JobStateReasons><pwg:JobStateReason>")
+                    .append(job.isFinished() ? "JobCompletedSuccessfully" : "JobScanning")
+                    .append("</pwg:JobStateReason></pwg:JobStateReasons>\n");
+                sb.append("    </scan:JobInfo>\n");
+            }
+        }
+        sb.append("  </scan:Jobs>\n");
+        sb.append("</scan:ScannerStatus>\n");
+        return sb.toString();
+    }
+
+    private void expireJobs() {
+        long limit = System.nanoTime() - TimeUnit.SECONDS.toNanos(JOB_RETENTION_SECONDS);
+        jobs.values().removeIf(job -> job.isFinished() && job.finished - limit < 0);
+    }
+
+    private static void send(HttpExchange exchange, int status, String contentType, byte[] body) throws IOException {
+        if (contentType != null) {
+            exchange.getResponseHeaders().set("Content-Type", contentType);
+        }
+        if (body == null || status == 304) {
+            exchange.sendResponseHeaders(status, -1);
+            return;
+        }
+        exchange.sendResponseHeaders(status, body.length);
+        exchange.getResponseBody().write(body);
+    }
+
+    private static String etag(byte[] data) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(data);
+            return "\"" + Base64.getUrlEncoder().withoutPadding().encodeToString(digest).substring(0, 16) + "\"";
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (jmdns != null) {
+            jmdns.unregisterAllServices();
+            jmdns.close();
+        }
+        if (server != null) {
+            server.stop(0);
+            executor.shutdownNow();
+        }
+    }
+
+    private static class Job {
+        private final String id;
+        private final String uuid = UUID.randomUUID().toString();
+        private final long created = System.nanoTime();
+        private final int pages;
+        private int busyLeft;
+        private int delivered;
+        private String state = "Processing";
+        private long finished;
+
+        Job(String id, int pages, int busyLeft) {
+            this.id = id;
+            this.pages = pages;
+            this.busyLeft = busyLeft;
+        }
+
+        synchronized boolean isFinished() {
+            return !"Processing".equals(state);
+        }
+
+        synchronized void finish(String finalState) {
+            if (!isFinished()) {
+                state = finalState;
+                finished = System.nanoTime();
+            }
+        }
+    }
+
+    /**
+     * Limits the write rate by sleeping between chunks.
+     */
+    private static class ThrottledOutputStream extends FilterOutputStream {
+        private final long bytesPerSecond;
+        private final int chunk;
+        private final long start = System.nanoTime();
+        private long written;
+
+        ThrottledOutputStream(OutputStream out, long bytesPerSecond) {
+            super(out);
+            this.bytesPerSecond = bytesPerSecond;
+            this.chunk = (int) Math.max(1024, Math.min(64 * 1024, bytesPerSecond / 20));
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            write(new byte[]{(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            while (len > 0) {
+                int count = Math.min(len, chunk);
+                out.write(b, off, count);
+                written += count;
+                off += count;
+                len -= count;
+                long due = start + written * 1_000_000_000L / bytesPerSecond;
+                long wait = due - System.nanoTime();
+                if (wait > 0) {
+                    out.flush();
+                    try {
+                        TimeUnit.NANOSECONDS.sleep(wait);
+                    } catch (InterruptedException ex) {
+                        Thread.currentThread().interrupt();
+                        throw new InterruptedIOException();
+                    }
+                }
+            }
+        }
+    }
+}
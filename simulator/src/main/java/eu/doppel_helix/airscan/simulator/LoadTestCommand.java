@@ -0,0 +1,185 @@
+/*
+ * Copyright 2026 Matthias Bläsing
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.doppel_helix.airscan.simulator;
+
+import eu.doppel_helix.airscan.Capabilities;
+import eu.doppel_helix.airscan.EsclClient;
+import eu.doppel_helix.airscan.Page;
+import eu.doppel_helix.airscan.PageSink;
+import eu.doppel_helix.airscan.ScanEngine;
+import eu.doppel_helix.airscan.ScanRequest;
+import eu.doppel_helix.airscan.ScanResult;
+import eu.doppel_helix.airscan.ScanSettings;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import picocli.CommandLine;
+import picocli.CommandLine.Option;
+
+/**
+ * Runs many scans in parallel through one {@link ScanEngine}, against a
+ * scanner URL or an embedded simulator configured with the options of the
+ * parent command. Every client runs its scans back to back, the pages are
+ * discarded after they were received.
+ */
+@CommandLine.Command(
+    name = "load",
+    mixinStandardHelpOptions = true,
+    description = "Run concurrent scans against the simulator or a scanner and report latency and throughput"
+)
+public class LoadTestCommand implements Callable<Integer> {
+
+    private static final int MAX_FAILURES_SHOWN = 10;
+
+    @CommandLine.ParentCommand
+    private SimulatorCommand parent;
+
+    @Option(names = {"-u", "--url"}, description = "Scanner URL (Defaults to an embedded simulator on a free port)")
+    private String url;
+
+    @Option(names = {"--clients"}, description = "Number of concurrent clients (Default: ${DEFAULT-VALUE})")
+    private int clients = 8;
+
+    @Option(names = {"--scans"}, description = "Number of scans per client (Default: ${DEFAULT-VALUE})")
+    private int scans = 10;
+
+    @Option(names = {"-a", "--adf"}, description = "Scan from the document feeder instead of the platen")
+    private boolean adf = false;
+
+    @Option(names = {"--read-timeout"}, description = "Time in seconds to wait for an answer or for more data of a document (Default: ${DEFAULT-VALUE})")
+    private long readTimeout = 120;
+
+    @Option(names = {"--total-timeout"}, description = "Time in seconds a scan may take in total, 0 for no limit (Default: ${DEFAULT-VALUE})")
+    private long totalTimeout = 0;
+
+    @Option(names = {"--min-throughput"}, description = "Abort a document transfer slower than this many bytes per second (suffix k or M allowed) for 30 s")
+    private String minThroughput;
+
+    @Option(names = {"-d", "--debug"}, description = "Verbose output")
+    private boolean debug = false;
+
+    @Override
+    public Integer call() throws Exception {
+        EsclSimulator simulator = null;
+        String scannerUrl = url;
+        if (scannerUrl == null) {
+            SimulatorConfig config = parent.toConfig();
+            config.setPort(0);
+            config.setMdns(false);
+            simulator = new EsclSimulator(config);
+            simulator.start();
+            scannerUrl = simulator.getBaseUrl();
+        }
+        long floor = minThroughput == null ? 0 : SimulatorCommand.parseSize(minThroughput);
+        try (ScanEngine engine = new ScanEngine(debug, false, 0, Duration.ofSeconds(10), Duration.ofSeconds(readTimeout),
+            Duration.ofSeconds(totalTimeout), floor, Duration.ofSeconds(30))) {
+            EsclClient client = engine.getClient(scannerUrl);
+            Capabilities capabilities = engine.getCapabilities(client, null);
+            ScanRequest request = new ScanRequest();
+            request.setAdf(adf);
+            ScanSettings settings = engine.createSettings(capabilities, request);
+
+            System.out.printf("%20s: %s%n", "Scanner", scannerUrl);
+            System.out.printf("%20s: %d x %d scan(s)%n", "Clients", clients, scans);
+
+            List<Long> latencies = Collections.synchronizedList(new ArrayList<>());
+            Map<String, AtomicInteger> failures = new ConcurrentHashMap<>();
+            AtomicLong pages = new AtomicLong();
+            AtomicLong bytes = new AtomicLong();
+            ExecutorService executor = Executors.newFixedThreadPool(clients);
+            long start = System.nanoTime();
+            for (int i = 0; i < clients; i++) {
+                executor.execute(() -> {
+                    for (int j = 0; j < scans; j++) {
+                        long scanStart = System.nanoTime();
+                        try {
+                            ScanResult result = engine.scan(client, settings, request.getDuplexOrder(), new DiscardingPageSink());
+                            latencies.add(System.nanoTime() - scanStart);
+                            pages.addAndGet(result.getPages());
+                            bytes.addAndGet(result.getBytes());
+                        } catch (Exception ex) {
+                            String message = ex.getClass().getSimpleName() + ": " + ex.getMessage();
+                            failures.computeIfAbsent(message, m -> new AtomicInteger()).incrementAndGet();
+                        }
+                    }
+                });
+            }
+            executor.shutdown();
+            executor.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+            long elapsed = System.nanoTime() - start;
+
+            int failed = failures.values().stream().mapToInt(AtomicInteger::get).sum();
+            List<Long> sorted = new ArrayList<>(latencies);
+            Collections.sort(sorted);
+            System.out.println();
+            System.out.printf("%20s: %d ok, %d failed%n", "Scans", sorted.size(), failed);
+            System.out.printf("%20s: %d%n", "Pages", pages.get());
+            System.out.printf("%20s: %d%n", "Bytes", bytes.get());
+            System.out.printf("%20s: %.2f s%n", "Duration", elapsed / 1e9);
+            System.out.printf("%20s: %.1f scans/s, %.1f pages/s, %.2f MB/s%n", "Throughput",
+                sorted.size() * 1e9 / elapsed, pages.get() * 1e9 / elapsed, bytes.get() * 1e3 / elapsed);
+            if (!sorted.isEmpty()) {
+                System.out.printf("%20s: p50 %d ms, p95 %d ms, max %d ms%n", "Scan latency",
+                    toMillis(percentile(sorted, 0.50)), toMillis(percentile(sorted, 0.95)), toMillis(sorted.get(sorted.size() - 1)));
+            }
+            failures.entrySet().stream()
+                .limit(MAX_FAILURES_SHOWN)
+                .forEach(e -> System.out.printf("%20s: %dx %s%n", "Failure", e.getValue().get(), e.getKey()));
+            engine.getMetrics().printSummary(System.out);
+            if (simulator != null) {
+                System.out.println("\nSimulator");
+                System.out.printf("%20s: %d%n", "Requests", simulator.getRequests());
+                System.out.printf("%20s: %d%n", "Busy responses", simulator.getBusyResponses());
+                System.out.printf("%20s: %d%n", "Pages sent", simulator.getPagesSent());
+                System.out.printf("%20s: %d%n", "Bytes sent", simulator.getBytesSent());
+            }
+            return failed == 0 ? 0 : 1;
+        } finally {
+            if (simulator != null) {
+                simulator.close();
+            }
+        }
+    }
+
+    private static long percentile(List<Long> sorted, double fraction) {
+        int index = (int) Math.ceil(fraction * sorted.size()) - 1;
+        return sorted.get(Math.max(0, Math.min(index, sorted.size() - 1)));
+    }
+
+    private static long toMillis(long nanos) {
+        return TimeUnit.NANOSECONDS.toMillis(nanos);
+    }
+
+    private static class DiscardingPageSink implements PageSink {
+        @Override
+        public void write(Page page) {
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
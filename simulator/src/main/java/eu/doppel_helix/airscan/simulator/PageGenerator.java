@@ -0,0 +1,137 @@
+/*
+ * Copyright 2026 Matthias Bläsing
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.doppel_helix.airscan.simulator;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import javax.imageio.ImageIO;
+
+/**
+ * Produces the simulated pages: a small grayscale JPEG that looks like a
+ * text page (dark bars instead of lines of text, different for every page
+ * number), padded with comment segments to the configured page size. The
+ * pages are valid JPEG files, so cropping, blank page detection and PDF
+ * assembly work on them, and the padding is streamed without holding the
+ * whole page in memory.
+ */
+class PageGenerator {
+
+    private static final int WIDTH = 850;
+    private static final int HEIGHT = 1100;
+    private static final int MAX_SEGMENT = 65535 + 2;
+    private static final int MIN_SEGMENT = 4;
+
+    private final long pageSize;
+    private final ConcurrentMap<Integer, byte[]> images = new ConcurrentHashMap<>();
+
+    /**
+     * @param pageSize size of each page in bytes
+     */
+    PageGenerator(long pageSize) {
+        this.pageSize = pageSize;
+    }
+
+    /**
+     * @param number
+     * @return size of the page in bytes
+     */
+    long size(int number) {
+        return image(number).length + padding(number);
+    }
+
+    /**
+     * Write the page.
+     *
+     * @param number
+     * @param os
+     * @throws IOException
+     */
+    void write(int number, OutputStream os) throws IOException {
+        byte[] image = image(number);
+        long padding = padding(number);
+        // Start of image marker, the comments and the rest of the image
+        os.write(image, 0, 2);
+        byte[] segment = new byte[MAX_SEGMENT];
+        segment[0] = (byte) 0xFF;
+        segment[1] = (byte) 0xFE;
+        while (padding > 0) {
+            int length = (int) Math.min(MAX_SEGMENT, padding);
+            if (padding - length > 0 && padding - length < MIN_SEGMENT) {
+                // Leave enough for a last segment
+                length -= MIN_SEGMENT;
+            }
+            segment[2] = (byte) ((length - 2) >> 8);
+            segment[3] = (byte) (length - 2);
+            os.write(segment, 0, length);
+            padding -= length;
+        }
+        os.write(image, 2, image.length - 2);
+    }
+
+    private long padding(int number) {
+        long padding = pageSize - image(number).length;
+        if (padding <= 0) {
+            return 0;
+        }
+        // The smallest comment segment is marker and length
+        return Math.max(MIN_SEGMENT, padding);
+    }
+
+    private byte[] image(int number) {
+        return images.computeIfAbsent(number, PageGenerator::render);
+    }
+
+    private static byte[] render(int number) {
+        BufferedImage image = new BufferedImage(WIDTH, HEIGHT, BufferedImage.TYPE_BYTE_GRAY);
+        Graphics2D g = image.createGraphics();
+        try {
+            g.setColor(Color.WHITE);
+            g.fillRect(0, 0, WIDTH, HEIGHT);
+            g.setColor(Color.DARK_GRAY);
+            Random random = new Random(number);
+            // Page number as tally marks in the header
+            for (int i = 0; i < Math.min(number, 40); i++) {
+                g.fillRect(80 + i * 12, 80, 6, 30);
+            }
+            for (int y = 160; y < HEIGHT - 100; y += 28) {
+                int x = 80;
+                while (x < WIDTH - 120) {
+                    int word = 20 + random.nextInt(60);
+                    g.fillRect(x, y, Math.min(word, WIDTH - 80 - x), 12);
+                    x += word + 12;
+                }
+            }
+        } finally {
+            g.dispose();
+        }
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        try {
+            ImageIO.write(image, "jpeg", baos);
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+        return baos.toByteArray();
+    }
+}
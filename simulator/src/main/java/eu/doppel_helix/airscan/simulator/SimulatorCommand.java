@@ -0,0 +1,146 @@
+/*
+ * Copyright 2026 Matthias Bläsing
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.doppel_helix.airscan.simulator;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import picocli.CommandLine;
+import picocli.CommandLine.Option;
+
+/**
+ * Run the eSCL simulator until the process is terminated.
+ */
+@CommandLine.Command(
+    name = "escl-simulator",
+    mixinStandardHelpOptions = true,
+    description = "Simulate an eSCL scanner for offline integration and load tests",
+    subcommands = {LoadTestCommand.class}
+)
+public class SimulatorCommand implements Callable<Integer> {
+
+    public static void main(String[] argv) throws Exception {
+        System.exit(new CommandLine(new SimulatorCommand()).execute(argv));
+    }
+
+    @Option(names = {"--bind"}, description = "Address to listen on (Default: ${DEFAULT-VALUE})")
+    private String bindAddress = "127.0.0.1";
+
+    @Option(names = {"-p", "--port"}, description = "Port to listen on, 0 for a free port (Default: ${DEFAULT-VALUE})")
+    private int port = 8631;
+
+    @Option(names = {"--capabilities"}, description = "ScannerCapabilities document to serve (Defaults to a built-in flatbed and feeder scanner)")
+    private Path capabilitiesFile;
+
+    @Option(names = {"--pages"}, description = "Number of pages delivered by a scan from the feeder, platen scans deliver one page (Default: ${DEFAULT-VALUE})")
+    private int pages = 5;
+
+    @Option(names = {"--page-size"}, description = "Size of each page in bytes (suffix k or M allowed, Default: ${DEFAULT-VALUE})")
+    private String pageSize = "512k";
+
+    @Option(names = {"--bandwidth"}, description = "Transfer rate of each document in bytes per second (suffix k or M allowed, Defaults to no limit)")
+    private String bandwidth;
+
+    @Option(names = {"--latency"}, description = "Delay in milliseconds before every response (Default: ${DEFAULT-VALUE})")
+    private long latency = 0;
+
+    @Option(names = {"--busy"}, description = "Answer this many NextDocument requests of each job with 503 before the first page (Default: ${DEFAULT-VALUE})")
+    private int busyResponses = 0;
+
+    @Option(names = {"--retry-after"}, description = "Retry-After header in seconds sent with 503 responses, 0 to omit it (Default: ${DEFAULT-VALUE})")
+    private long retryAfter = 0;
+
+    @Option(names = {"--max-jobs"}, description = "Answer new jobs with 503 while this many jobs are active, 0 for no limit (Default: ${DEFAULT-VALUE})")
+    private int maxJobs = 0;
+
+    @Option(names = {"--mdns"}, description = "Advertise the simulator as _uscan._tcp service")
+    private boolean mdns = false;
+
+    @Option(names = {"--name"}, description = "Service name used for the mDNS advertisement (Default: ${DEFAULT-VALUE})")
+    private String name = "airscan eSCL Simulator";
+
+    /**
+     * @return configuration built from the options
+     */
+    SimulatorConfig toConfig() {
+        SimulatorConfig config = new SimulatorConfig();
+        config.setBindAddress(bindAddress);
+        config.setPort(port);
+        config.setCapabilitiesFile(capabilitiesFile);
+        config.setPages(pages);
+        config.setPageSize(parseSize(pageSize));
+        config.setBandwidth(bandwidth == null ? 0 : parseSize(bandwidth));
+        config.setLatency(Duration.ofMillis(latency));
+        config.setBusyResponses(busyResponses);
+        config.setRetryAfter(retryAfter);
+        config.setMaxJobs(maxJobs);
+        config.setMdns(mdns);
+        config.setName(name);
+        return config;
+    }
+
+    @Override
+    public Integer call() throws Exception {
+        SimulatorConfig config = toConfig();
+        EsclSimulator simulator = new EsclSimulator(config);
+        simulator.start();
+        CountDownLatch shutdown = new CountDownLatch(1);
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            try {
+                simulator.close();
+            } catch (Exception ex) {
+                // Shutting down anyway
+            }
+            shutdown.countDown();
+        }, "escl-simulator-shutdown"));
+        System.out.printf("%20s: %s%n", "Listening on", simulator.getBaseUrl());
+        System.out.printf("%20s: %d x %d bytes%n", "Feeder pages", config.getPages(), config.getPageSize());
+        if (config.getBandwidth() > 0) {
+            System.out.printf("%20s: %d bytes/s%n", "Bandwidth", config.getBandwidth());
+        }
+        shutdown.await();
+        return 0;
+    }
+
+    /**
+     * Parse a size in bytes with an optional {@code k} or {@code M} suffix
+     * (1024 based).
+     */
+    static long parseSize(String value) {
+        String trimmed = value.trim();
+        long factor = 1;
+        char suffix = Character.toLowerCase(trimmed.charAt(trimmed.length() - 1));
+        if (suffix == 'k') {
+            factor = 1024;
+        } else if (suffix == 'm') {
+            factor = 1024 * 1024;
+        }
+        if (factor != 1) {
+            trimmed = trimmed.substring(0, trimmed.length() - 1).trim();
+        }
+        try {
+            long size = Long.parseLong(trimmed) * factor;
+            if (size <= 0) {
+                throw new IllegalArgumentException("Size must be positive: " + value);
+            }
+            return size;
+        } catch (NumberFormatException ex) {
+            throw new IllegalArgumentException("Invalid size: " + value);
+        }
+    }
+}
@@ -0,0 +1,172 @@
+/*
+ * Copyright 2026 Matthias Bläsing
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.doppel_helix.airscan.simulator;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+/**
+ * Behavior of the simulated scanner.
+ */
+public class SimulatorConfig {
+
+    private String bindAddress = "127.0.0.1";
+    private int port = 8631;
+    private Path capabilitiesFile;
+    private int pages = 5;
+    private long pageSize = 512 * 1024;
+    private long bandwidth;
+    private Duration latency = Duration.ZERO;
+    private int busyResponses;
+    private long retryAfter;
+    private int maxJobs;
+    private boolean mdns;
+    private String name = "airscan eSCL Simulator";
+
+    public String getBindAddress() {
+        return bindAddress;
+    }
+
+    public void setBindAddress(String bindAddress) {
+        this.bindAddress = bindAddress;
+    }
+
+    /**
+     * @return port to listen on, {@code 0} for a free port
+     */
+    public int getPort() {
+        return port;
+    }
+
+    public void setPort(int port) {
+        this.port = port;
+    }
+
+    /**
+     * @return {@code ScannerCapabilities} document to serve, {@code null}
+     * for the built-in document
+     */
+    public Path getCapabilitiesFile() {
+        return capabilitiesFile;
+    }
+
+    public void setCapabilitiesFile(Path capabilitiesFile) {
+        this.capabilitiesFile = capabilitiesFile;
+    }
+
+    /**
+     * @return number of pages delivered by a job from the feeder, platen
+     * jobs always deliver one page
+     */
+    public int getPages() {
+        return pages;
+    }
+
+    public void setPages(int pages) {
+        this.pages = pages;
+    }
+
+    /**
+     * @return size of each page in bytes, pages are never smaller than the
+     * rendered image
+     */
+    public long getPageSize() {
+        return pageSize;
+    }
+
+    public void setPageSize(long pageSize) {
+        this.pageSize = pageSize;
+    }
+
+    /**
+     * @return bytes per second for each document transfer, {@code 0} for
+     * no limit
+     */
+    public long getBandwidth() {
+        return bandwidth;
+    }
+
+    public void setBandwidth(long bandwidth) {
+        this.bandwidth = bandwidth;
+    }
+
+    /**
+     * @return delay before every response
+     */
+    public Duration getLatency() {
+        return latency;
+    }
+
+    public void setLatency(Duration latency) {
+        this.latency = latency;
+    }
+
+    /**
+     * @return number of {@code NextDocument} requests of each job answered
+     * with {@code 503} before the first page is delivered
+     */
+    public int getBusyResponses() {
+        return busyResponses;
+    }
+
+    public void setBusyResponses(int busyResponses) {
+        this.busyResponses = busyResponses;
+    }
+
+    /**
+     * @return value of the {@code Retry-After} header of {@code 503}
+     * responses in seconds, {@code 0} to omit the header
+     */
+    public long getRetryAfter() {
+        return retryAfter;
+    }
+
+    public void setRetryAfter(long retryAfter) {
+        this.retryAfter = retryAfter;
+    }
+
+    /**
+     * @return maximum number of active jobs, further job requests are
+     * answered with {@code 503}; {@code 0} for no limit
+     */
+    public int getMaxJobs() {
+        return maxJobs;
+    }
+
+    public void setMaxJobs(int maxJobs) {
+        this.maxJobs = maxJobs;
+    }
+
+    /**
+     * @return advertise the simulator as {@code _uscan._tcp} service
+     */
+    public boolean isMdns() {
+        return mdns;
+    }
+
+    public void setMdns(boolean mdns) {
+        this.mdns = mdns;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+}
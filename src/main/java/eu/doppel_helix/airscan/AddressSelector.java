@@ -0,0 +1,216 @@
+/*
+ * Copyright 2026 Matthias Bläsing
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.doppel_helix.airscan;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Selects the address of a scanner by connecting to all of its addresses in
+ * the style of "happy eyeballs" (RFC 8305): connection attempts are started
+ * one after another with a short delay, without waiting for the previous
+ * attempt to time out, and the first address that accepts the connection
+ * wins.
+ *
+ * <p>
+ * Addresses with a known connect time are tried first (fastest first),
+ * unknown addresses are tried with alternating address families, addresses
+ * that failed before are tried last.</p>
+ */
+public class AddressSelector {
+
+    private static final Duration ATTEMPT_DELAY = Duration.ofMillis(250);
+
+    private final RttCache rttCache;
+    private final Duration connectTimeout;
+    private final boolean debug;
+
+    /**
+     * @param rttCache
+     * @param connectTimeout upper bound for the whole selection
+     * @param debug
+     */
+    public AddressSelector(RttCache rttCache, Duration connectTimeout, boolean debug) {
+        this.rttCache = rttCache;
+        this.connectTimeout = connectTimeout;
+        this.debug = debug;
+    }
+
+    /**
+     * Select the URL of the service.
+     *
+     * @param service
+     * @return the URL of the fastest address or the preferred URL of the
+     * service if no address could be connected
+     * @throws InterruptedException
+     */
+    public String selectUrl(ScannerService service) throws InterruptedException {
+        String host = select(service.getHostAddresses(), service.getPort());
+        return host == null ? service.getPreferredUrl() : ScannerService.urlFor(host, service.getPort());
+    }
+
+    /**
+     * Connect to the addresses and return the first one accepting the
+     * connection.
+     *
+     * @param hosts address literals
+     * @param port
+     * @return the selected address or {@code null} if no address could be
+     * connected
+     * @throws InterruptedException
+     */
+    public String select(List<String> hosts, int port) throws InterruptedException {
+        if (hosts.isEmpty()) {
+            return null;
+        }
+        List<String> ordered = order(hosts, port);
+        BlockingQueue<Attempt> finished = new LinkedBlockingQueue<>();
+        List<Attempt> started = new ArrayList<>();
+        ExecutorService executor = Executors.newCachedThreadPool(r -> {
+            Thread thread = new Thread(r, "airscan-connect");
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            long deadline = System.nanoTime() + connectTimeout.toNanos();
+            int completed = 0;
+            while (completed < ordered.size()) {
+                if (started.size() < ordered.size() && started.size() == completed) {
+                    // Nothing in flight: start the next attempt immediately
+                    start(executor, ordered.get(started.size()), port, finished, started);
+                }
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0) {
+                    break;
+                }
+                long wait = started.size() < ordered.size()
+                    ? Math.min(remaining, ATTEMPT_DELAY.toNanos())
+                    : remaining;
+                Attempt attempt = finished.poll(wait, TimeUnit.NANOSECONDS);
+                if (attempt == null) {
+                    if (started.size() < ordered.size()) {
+                        start(executor, ordered.get(started.size()), port, finished, started);
+                    }
+                    continue;
+                }
+                completed++;
+                if (attempt.success) {
+                    rttCache.record(attempt.host, port, attempt.rttMillis);
+                    if (debug) {
+                        System.err.printf("Selected address %s (connected in %d ms)%n", attempt.host, attempt.rttMillis);
+                    }
+                    return attempt.host;
+                }
+                rttCache.recordFailure(attempt.host, port);
+                if (debug) {
+                    System.err.printf("Address %s not reachable: %s%n", attempt.host, attempt.error);
+                }
+            }
+            return null;
+        } finally {
+            for (Attempt attempt : started) {
+                attempt.close();
+            }
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Order the addresses for the connection attempts.
+     */
+    List<String> order(List<String> hosts, int port) {
+        List<String> known = new ArrayList<>();
+        List<String> unknownV6 = new ArrayList<>();
+        List<String> unknownV4 = new ArrayList<>();
+        List<String> failed = new ArrayList<>();
+        for (String host : hosts) {
+            Long rtt = rttCache.get(host, port);
+            if (rtt == null) {
+                (host.contains(":") ? unknownV6 : unknownV4).add(host);
+            } else if (rtt == RttCache.FAILED) {
+                failed.add(host);
+            } else {
+                known.add(host);
+            }
+        }
+        known.sort(Comparator.comparing(host -> rttCache.get(host, port)));
+        List<String> result = new ArrayList<>(known);
+        for (int i = 0; i < Math.max(unknownV6.size(), unknownV4.size()); i++) {
+            if (i < unknownV6.size()) {
+                result.add(unknownV6.get(i));
+            }
+            if (i < unknownV4.size()) {
+                result.add(unknownV4.get(i));
+            }
+        }
+        result.addAll(failed);
+        return result;
+    }
+
+    private void start(ExecutorService executor, String host, int port, BlockingQueue<Attempt> finished, List<Attempt> started) {
+        Attempt attempt = new Attempt(host);
+        started.add(attempt);
+        executor.execute(() -> {
+            attempt.connect(port, (int) connectTimeout.toMillis());
+            finished.add(attempt);
+        });
+    }
+
+    private static class Attempt {
+        private final String host;
+        private final Socket socket = new Socket();
+        private volatile boolean success;
+        private volatile long rttMillis;
+        private volatile String error;
+
+        Attempt(String host) {
+            this.host = host;
+        }
+
+        void connect(int port, int timeoutMillis) {
+            long start = System.nanoTime();
+            try {
+                socket.connect(new InetSocketAddress(InetAddress.getByName(host), port), timeoutMillis);
+                rttMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+                success = true;
+            } catch (IOException | RuntimeException ex) {
+                error = ex.getMessage();
+            } finally {
+                close();
+            }
+        }
+
+        void close() {
+            try {
+                socket.close();
+            } catch (IOException ex) {
+                // Only used for probing
+            }
+        }
+    }
+}
@@ -0,0 +1,103 @@
+/*
+ * Copyright 2026 Matthias Bläsing
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.doppel_helix.airscan;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Hands pages to the delegate on a background thread, so that the next page
+ * can be requested from the scanner while the previous one is processed. At
+ * most one page is pending, which bounds memory usage to two pages.
+ */
+public class AsyncPageSink implements PageSink {
+
+    private final PageSink delegate;
+    private final ExecutorService executor;
+    private Future<?> pending;
+
+    public AsyncPageSink(PageSink delegate) {
+        this.delegate = delegate;
+        this.executor = Executors.newSingleThreadExecutor(r -> {
+            Thread thread = new Thread(r, "airscan-page-writer");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @Override
+    public void write(Page page) throws IOException {
+        awaitPending();
+        pending = executor.submit(() -> {
+            try {
+                delegate.write(page);
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+        });
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            awaitPending();
+            delegate.close();
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * The delegate is aborted on the writer thread after the pending page,
+     * so it is never used concurrently.
+     */
+    @Override
+    public void abort() {
+        executor.execute(delegate::abort);
+        executor.shutdown();
+        try {
+            executor.awaitTermination(1, TimeUnit.MINUTES);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void awaitPending() throws IOException {
+        if (pending == null) {
+            return;
+        }
+        try {
+            pending.get();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while writing page");
+        } catch (ExecutionException ex) {
+            if (ex.getCause() instanceof UncheckedIOException) {
+                throw ((UncheckedIOException) ex.getCause()).getCause();
+            }
+            throw new IOException(ex.getCause());
+        } finally {
+            pending = null;
+        }
+    }
+}
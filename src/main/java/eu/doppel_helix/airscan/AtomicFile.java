@@ -0,0 +1,200 @@
+/*
+ * Copyright 2026 Matthias Bläsing
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.doppel_helix.airscan;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Output file that only appears under its final name once it is complete.
+ * Data is written to a temporary file in the target directory through a
+ * {@link FileChannel} and a reused direct buffer, {@link #commit()} moves
+ * it atomically into place. Closing an uncommitted file deletes it.
+ */
+public class AtomicFile implements Closeable {
+
+    private static final int BUFFER_SIZE = 1024 * 1024;
+
+    /**
+     * Direct buffers are expensive to allocate and are only freed by the
+     * garbage collector, so they are reused across files.
+     */
+    private static final Queue<ByteBuffer> BUFFERS = new ConcurrentLinkedQueue<>();
+
+    private final Path target;
+    private final Path tempFile;
+    private final SyncPolicy syncPolicy;
+    private final FileChannel channel;
+    private ByteBuffer buffer;
+    private boolean committed;
+
+    public AtomicFile(Path target, SyncPolicy syncPolicy) throws IOException {
+        this.target = target.toAbsolutePath();
+        this.syncPolicy = syncPolicy;
+        // Not Files.createTempFile: it restricts the file to the owner, the
+        // result has to get the same permissions as a plain new file
+        Path temp;
+        FileChannel created;
+        while (true) {
+            temp = this.target.resolveSibling("." + target.getFileName() + "."
+                + Long.toUnsignedString(ThreadLocalRandom.current().nextLong(), 36) + ".tmp");
+            try {
+                created = FileChannel.open(temp, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+                break;
+            } catch (FileAlreadyExistsException ex) {
+                // Name collision, try another one
+            }
+        }
+        this.tempFile = temp;
+        this.channel = created;
+        ByteBuffer pooled = BUFFERS.poll();
+        this.buffer = pooled != null ? pooled : ByteBuffer.allocateDirect(BUFFER_SIZE);
+    }
+
+    /**
+     * Write a complete file.
+     *
+     * @param target
+     * @param data
+     * @param syncPolicy
+     * @throws IOException
+     */
+    public static void write(Path target, byte[] data, SyncPolicy syncPolicy) throws IOException {
+        try (AtomicFile file = new AtomicFile(target, syncPolicy)) {
+            file.write(data, 0, data.length);
+            file.commit();
+        }
+    }
+
+    public void write(byte[] data, int offset, int length) throws IOException {
+        while (length > 0) {
+            if (!buffer.hasRemaining()) {
+                flushBuffer();
+            }
+            int chunk = Math.min(length, buffer.remaining());
+            buffer.put(data, offset, chunk);
+            offset += chunk;
+            length -= chunk;
+        }
+    }
+
+    /**
+     * @return stream writing into this file, closing the stream does not
+     * commit the file
+     */
+    public OutputStream asOutputStream() {
+        return new OutputStream() {
+            @Override
+            public void write(int b) throws IOException {
+                AtomicFile.this.write(new byte[]{(byte) b}, 0, 1);
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) throws IOException {
+                AtomicFile.this.write(b, off, len);
+            }
+        };
+    }
+
+    /**
+     * Flush the data according to the sync policy and move the file to its
+     * final name.
+     *
+     * @throws IOException
+     */
+    public void commit() throws IOException {
+        flushBuffer();
+        if (syncPolicy != SyncPolicy.NONE) {
+            channel.force(true);
+        }
+        channel.close();
+        releaseBuffer();
+        copyPermissions();
+        try {
+            Files.move(tempFile, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException ex) {
+            Files.move(tempFile, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+        committed = true;
+        if (syncPolicy == SyncPolicy.FULL) {
+            syncDirectory(target.getParent());
+        }
+    }
+
+    /**
+     * A replaced file keeps its permissions, as it would if it was
+     * overwritten in place.
+     */
+    private void copyPermissions() {
+        try {
+            Files.setPosixFilePermissions(tempFile, Files.getPosixFilePermissions(target));
+        } catch (IOException | UnsupportedOperationException ex) {
+            // Target does not exist yet or the file system has no POSIX
+            // permissions, the defaults apply
+        }
+    }
+
+    private void flushBuffer() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    private void releaseBuffer() {
+        if (buffer != null) {
+            buffer.clear();
+            BUFFERS.offer(buffer);
+            buffer = null;
+        }
+    }
+
+    private static void syncDirectory(Path directory) {
+        try (FileChannel dir = FileChannel.open(directory, StandardOpenOption.READ)) {
+            dir.force(true);
+        } catch (IOException ex) {
+            // Not supported on all platforms (e.g. Windows), the file
+            // itself is already flushed
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (committed) {
+            return;
+        }
+        try {
+            channel.close();
+        } finally {
+            releaseBuffer();
+            Files.deleteIfExists(tempFile);
+        }
+    }
+}
@@ -0,0 +1,77 @@
+/*
+ * Copyright 2026 Matthias Bläsing
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.doppel_helix.airscan;
+
+import java.io.InterruptedIOException;
+import java.time.Duration;
+
+/**
+ * Exponential backoff for polling the scanner. The delay grows while the
+ * scanner makes no progress and is reset by the caller once progress is
+ * observed.
+ */
+public class Backoff {
+
+    private final long initialMillis;
+    private final long maxMillis;
+    private final double multiplier;
+    private long currentMillis;
+
+    public Backoff(Duration initial, Duration max, double multiplier) {
+        this.initialMillis = initial.toMillis();
+        this.maxMillis = max.toMillis();
+        this.multiplier = multiplier;
+        this.currentMillis = initialMillis;
+    }
+
+    public void reset() {
+        currentMillis = initialMillis;
+    }
+
+    /**
+     * @return the delay to use for the next wait, the following delay is
+     * increased
+     */
+    public long nextDelayMillis() {
+        long delay = currentMillis;
+        currentMillis = Math.min(maxMillis, (long) (currentMillis * multiplier));
+        return delay;
+    }
+
+    /**
+     * Wait for the next delay. If the scanner reported a {@code Retry-After}
+     * value, it is used if it is longer than the computed delay.
+     *
+     * @param retryAfterSeconds value of the {@code Retry-After} header or
+     * {@code null}
+     * @return the time waited in milliseconds
+     * @throws InterruptedIOException
+     */
+    public long sleep(Long retryAfterSeconds) throws InterruptedIOException {
+        long delay = nextDelayMillis();
+        if (retryAfterSeconds != null) {
+            delay = Math.max(delay, Math.min(maxMillis * 4, retryAfterSeconds * 1000));
+        }
+        try {
+            Thread.sleep(delay);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for scanner");
+        }
+        return delay;
+    }
+}
@@ -0,0 +1,111 @@
+/*
+ * Copyright 2026 Matthias Bläsing
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.doppel_helix.airscan;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.Iterator;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+
+/**
+ * Drops pages without content. Each page is decoded subsampled to roughly
+ * {@value #SAMPLE_WIDTH} pixels width and the share of pixels that differ
+ * from the paper color is measured, ignoring a small margin where sheet
+ * edges and shadows show up. The remaining pages are renumbered, so that
+ * the output has no gaps.
+ */
+public class BlankPageFilter implements PageSink {
+
+    private static final int SAMPLE_WIDTH = 400;
+    private static final double MARGIN = 0.05;
+
+    private final PageSink delegate;
+    private final double threshold;
+    private int pageNumber;
+    private int dropped;
+
+    /**
+     * @param delegate
+     * @param threshold pages with an ink coverage below this fraction (0..1)
+     * are dropped
+     */
+    public BlankPageFilter(PageSink delegate, double threshold) {
+        this.delegate = delegate;
+        this.threshold = threshold;
+    }
+
+    @Override
+    public void write(Page page) throws IOException {
+        double coverage = coverage(page);
+        if (coverage >= 0 && coverage < threshold) {
+            dropped++;
+            System.out.printf("Dropped blank page %d (ink coverage %.2f%%)%n", page.getNumber(), coverage * 100);
+            return;
+        }
+        pageNumber++;
+        delegate.write(page.getNumber() == pageNumber
+            ? page
+            : new Page(pageNumber, page.getContentType(), page.getData()));
+    }
+
+    public int getDropped() {
+        return dropped;
+    }
+
+    /**
+     * @return ink coverage of the page or -1 if the page can not be decoded
+     * (such pages are always kept)
+     */
+    static double coverage(Page page) throws IOException {
+        try (ImageInputStream iis = ImageIO.createImageInputStream(new ByteArrayInputStream(page.getData()))) {
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(iis);
+            if (!readers.hasNext()) {
+                return -1;
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(iis, true, true);
+                int subsampling = Math.max(1, reader.getWidth(0) / SAMPLE_WIDTH);
+                ImageReadParam param = reader.getDefaultReadParam();
+                param.setSourceSubsampling(subsampling, subsampling, 0, 0);
+                BufferedImage image = reader.read(0, param);
+                int marginX = (int) (image.getWidth() * MARGIN);
+                int marginY = (int) (image.getHeight() * MARGIN);
+                if (image.getWidth() - 2 * marginX <= 0 || image.getHeight() - 2 * marginY <= 0) {
+                    return -1;
+                }
+                return new ContentDetector(image).getCoverage(marginX, marginY);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        delegate.close();
+    }
+
+    @Override
+    public void abort() {
+        delegate.abort();
+    }
+}
@@ -0,0 +1,43 @@
+/*
+ * Copyright 2026 Matthias Bläsing
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.doppel_helix.airscan;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+public class CacheDirectory {
+
+    private CacheDirectory() {
+    }
+
+    /**
+     * Location for persistent cache data. Honors {@code XDG_CACHE_HOME} and
+     * falls back to {@code ~/.cache/airscan-cli}.
+     *
+     * @return
+     */
+    public static Path get() {
+        String xdgCacheHome = System.getenv("XDG_CACHE_HOME");
+        Path base;
+        if (xdgCacheHome != null && (!xdgCacheHome.isBlank())) {
+            base = Paths.get(xdgCacheHome);
+        } else {
+            base = Paths.get(System.getProperty("user.home"), ".cache");
+        }
+        return base.resolve("airscan-cli");
+    }
+}
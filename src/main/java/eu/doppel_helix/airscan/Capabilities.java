@@ -16,194 +16,541 @@
 
 package eu.doppel_helix.airscan;
 
-import static eu.doppel_helix.airscan.ScanNamespaceContext.NS_SCAN;
-import java.io.ByteArrayInputStream;
+import static eu.doppel_helix.airscan.CapabilitiesCache.readNullableString;
+import static eu.doppel_helix.airscan.CapabilitiesCache.writeNullableString;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.FilterInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
-import javax.xml.parsers.DocumentBuilderFactory;
-import javax.xml.parsers.ParserConfigurationException;
-import org.w3c.dom.Document;
-import org.w3c.dom.Element;
-import org.w3c.dom.Node;
-import org.w3c.dom.NodeList;
-import org.xml.sax.SAXException;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
 
 public class Capabilities {
-    private int maxWidth;
-    private int maxHeight;
-    private List<String> colorModes = Collections.EMPTY_LIST;
-    private List<String> contentTypes = Collections.EMPTY_LIST;
-    private List<String> documentFormats = Collections.EMPTY_LIST;
-    private List<Integer> resolutions = Collections.EMPTY_LIST;
-    private int maxResolution;
-    private Integer defaultResolution;
-    private String defaultColorMode;
 
-    public int getMaxWidth() {
-        return maxWidth;
+    static final XMLInputFactory XML_INPUT_FACTORY = createInputFactory();
+
+    private String version;
+    private String makeAndModel;
+    private String serialNumber;
+    private String uuid;
+    private String adminUri;
+    private InputSourceCapabilities platen;
+    private InputSourceCapabilities adfSimplex;
+    private InputSourceCapabilities adfDuplex;
+    private Integer feederCapacity;
+    private List<String> adfOptions = Collections.emptyList();
+    private SupportedRange compressionFactorSupport;
+
+    public String getVersion() {
+        return version;
     }
 
-    public void setMaxWidth(int maxWidth) {
-        this.maxWidth = maxWidth;
+    public void setVersion(String version) {
+        this.version = version;
     }
 
-    public int getMaxHeight() {
-        return maxHeight;
+    public String getMakeAndModel() {
+        return makeAndModel;
     }
 
-    public void setMaxHeight(int maxHeight) {
-        this.maxHeight = maxHeight;
+    public void setMakeAndModel(String makeAndModel) {
+        this.makeAndModel = makeAndModel;
     }
 
-    public List<String> getColorModes() {
-        return colorModes;
+    public String getSerialNumber() {
+        return serialNumber;
     }
 
-    public void setColorModes(List<String> colorModes) {
-        this.colorModes = colorModes;
+    public void setSerialNumber(String serialNumber) {
+        this.serialNumber = serialNumber;
     }
 
-    public List<String> getContentTypes() {
-        return contentTypes;
+    public String getUuid() {
+        return uuid;
     }
 
-    public void setContentTypes(List<String> contentTypes) {
-        this.contentTypes = contentTypes;
+    public void setUuid(String uuid) {
+        this.uuid = uuid;
     }
 
-    public List<String> getDocumentFormats() {
-        return documentFormats;
+    public String getAdminUri() {
+        return adminUri;
     }
 
-    public void setDocumentFormats(List<String> documentFormats) {
-        this.documentFormats = documentFormats;
+    public void setAdminUri(String adminUri) {
+        this.adminUri = adminUri;
     }
 
-    public List<Integer> getResolutions() {
-        return resolutions;
+    public InputSourceCapabilities getPlaten() {
+        return platen;
     }
 
-    public void setResolutions(List<Integer> resolutions) {
-        this.resolutions = resolutions;
+    public void setPlaten(InputSourceCapabilities platen) {
+        this.platen = platen;
     }
 
-    public int getMaxResolution() {
-        return maxResolution;
+    public InputSourceCapabilities getAdfSimplex() {
+        return adfSimplex;
     }
 
-    public void setMaxResolution(int maxResolution) {
-        this.maxResolution = maxResolution;
+    public void setAdfSimplex(InputSourceCapabilities adfSimplex) {
+        this.adfSimplex = adfSimplex;
     }
 
-    public Integer getDefaultResolution() {
-        return defaultResolution;
+    public InputSourceCapabilities getAdfDuplex() {
+        return adfDuplex;
     }
 
-    public void setDefaultResolution(Integer defaultResolution) {
-        this.defaultResolution = defaultResolution;
+    public void setAdfDuplex(InputSourceCapabilities adfDuplex) {
+        this.adfDuplex = adfDuplex;
     }
 
-    public String getDefaultColorMode() {
-        return defaultColorMode;
+    public Integer getFeederCapacity() {
+        return feederCapacity;
+    }
+
+    public void setFeederCapacity(Integer feederCapacity) {
+        this.feederCapacity = feederCapacity;
+    }
+
+    public List<String> getAdfOptions() {
+        return adfOptions;
+    }
+
+    public void setAdfOptions(List<String> adfOptions) {
+        this.adfOptions = adfOptions;
+    }
+
+    public SupportedRange getCompressionFactorSupport() {
+        return compressionFactorSupport;
+    }
+
+    public void setCompressionFactorSupport(SupportedRange compressionFactorSupport) {
+        this.compressionFactorSupport = compressionFactorSupport;
+    }
+
+    /**
+     * @return the platen if present, else the ADF
+     */
+    public InputSourceCapabilities getDefaultInputSource() {
+        if (platen != null) {
+            return platen;
+        } else if (adfSimplex != null) {
+            return adfSimplex;
+        } else {
+            return adfDuplex;
+        }
+    }
+
+    public int getMaxWidth() {
+        return getDefaultInputSource().getMaxWidth();
+    }
+
+    public int getMaxHeight() {
+        return getDefaultInputSource().getMaxHeight();
+    }
+
+    public List<String> getColorModes() {
+        return getDefaultInputSource().getColorModes();
+    }
+
+    public List<String> getContentTypes() {
+        return getDefaultInputSource().getContentTypes();
+    }
+
+    public List<String> getDocumentFormats() {
+        return getDefaultInputSource().getDocumentFormats();
+    }
+
+    public List<Integer> getResolutions() {
+        return getDefaultInputSource().getResolutions();
+    }
+
+    public int getMaxResolution() {
+        return getDefaultInputSource().getMaxResolution();
     }
 
-    public void setDefaultColorMode(String defaultColorMode) {
-        this.defaultColorMode = defaultColorMode;
+    public Integer getDefaultResolution() {
+        return getDefaultInputSource().getDefaultResolution();
+    }
+
+    public String getDefaultColorMode() {
+        return getDefaultInputSource().getDefaultColorMode();
     }
 
     @Override
     public String toString() {
-        return "Capabilities{" + "maxWidth=" + maxWidth + ", maxHeight=" + maxHeight + ", colorModes=" + colorModes + ", contentTypes=" + contentTypes + ", documentFormats=" + documentFormats + ", resolutions=" + resolutions + ", maxResolution=" + maxResolution + '}';
+        return "Capabilities{" + "makeAndModel=" + makeAndModel + ", uuid=" + uuid + ", platen=" + platen + ", adfSimplex=" + adfSimplex + ", adfDuplex=" + adfDuplex + ", compressionFactorSupport=" + compressionFactorSupport + '}';
+    }
+
+    /**
+     * Write the parsed capabilities in a compact binary form.
+     *
+     * @param dos
+     * @throws IOException
+     * @see #readFrom(java.io.DataInputStream)
+     */
+    public void writeTo(DataOutputStream dos) throws IOException {
+        writeNullableString(dos, version);
+        writeNullableString(dos, makeAndModel);
+        writeNullableString(dos, serialNumber);
+        writeNullableString(dos, uuid);
+        writeNullableString(dos, adminUri);
+        writeInputSource(dos, platen);
+        writeInputSource(dos, adfSimplex);
+        writeInputSource(dos, adfDuplex);
+        dos.writeInt(feederCapacity == null ? -1 : feederCapacity);
+        writeStrings(dos, adfOptions);
+        dos.writeBoolean(compressionFactorSupport != null);
+        if (compressionFactorSupport != null) {
+            dos.writeInt(compressionFactorSupport.getMin());
+            dos.writeInt(compressionFactorSupport.getMax());
+            dos.writeInt(compressionFactorSupport.getNormal());
+            dos.writeInt(compressionFactorSupport.getStep());
+        }
+    }
+
+    public static Capabilities readFrom(DataInputStream dis) throws IOException {
+        Capabilities c = new Capabilities();
+        c.version = readNullableString(dis);
+        c.makeAndModel = readNullableString(dis);
+        c.serialNumber = readNullableString(dis);
+        c.uuid = readNullableString(dis);
+        c.adminUri = readNullableString(dis);
+        c.platen = readInputSource(dis);
+        c.adfSimplex = readInputSource(dis);
+        c.adfDuplex = readInputSource(dis);
+        int capacity = dis.readInt();
+        c.feederCapacity = capacity < 0 ? null : capacity;
+        List<String> options = new ArrayList<>();
+        readStrings(dis, options);
+        c.adfOptions = Collections.unmodifiableList(options);
+        if (dis.readBoolean()) {
+            c.compressionFactorSupport = new SupportedRange(dis.readInt(), dis.readInt(), dis.readInt(), dis.readInt());
+        }
+        if (c.getDefaultInputSource() == null) {
+            throw new IOException("No input source in cached capabilities");
+        }
+        return c;
     }
 
+    private static void writeInputSource(DataOutputStream dos, InputSourceCapabilities source) throws IOException {
+        dos.writeBoolean(source != null);
+        if (source == null) {
+            return;
+        }
+        dos.writeInt(source.getMinWidth());
+        dos.writeInt(source.getMaxWidth());
+        dos.writeInt(source.getMinHeight());
+        dos.writeInt(source.getMaxHeight());
+        dos.writeInt(source.getMaxScanRegions());
+        dos.writeInt(source.getMaxOpticalXResolution());
+        dos.writeInt(source.getMaxOpticalYResolution());
+        writeStrings(dos, source.getColorModes());
+        writeStrings(dos, source.getContentTypes());
+        writeStrings(dos, source.getDocumentFormats());
+        writeStrings(dos, source.getSupportedIntents());
+        dos.writeInt(source.getResolutions().size());
+        for (Integer resolution : source.getResolutions()) {
+            dos.writeInt(resolution);
+        }
+        dos.writeInt(source.getDefaultResolution() == null ? -1 : source.getDefaultResolution());
+        writeNullableString(dos, source.getDefaultColorMode());
+    }
+
+    private static InputSourceCapabilities readInputSource(DataInputStream dis) throws IOException {
+        if (!dis.readBoolean()) {
+            return null;
+        }
+        InputSourceCapabilities source = new InputSourceCapabilities();
+        source.setMinWidth(dis.readInt());
+        source.setMaxWidth(dis.readInt());
+        source.setMinHeight(dis.readInt());
+        source.setMaxHeight(dis.readInt());
+        source.setMaxScanRegions(dis.readInt());
+        source.setMaxOpticalXResolution(dis.readInt());
+        source.setMaxOpticalYResolution(dis.readInt());
+        readStrings(dis, source.getColorModes());
+        readStrings(dis, source.getContentTypes());
+        readStrings(dis, source.getDocumentFormats());
+        readStrings(dis, source.getSupportedIntents());
+        int resolutionCount = dis.readInt();
+        for (int i = 0; i < resolutionCount; i++) {
+            source.getResolutions().add(dis.readInt());
+        }
+        int defaultResolution = dis.readInt();
+        source.setDefaultResolution(defaultResolution < 0 ? null : defaultResolution);
+        source.setDefaultColorMode(readNullableString(dis));
+        return source;
+    }
+
+    private static void writeStrings(DataOutputStream dos, List<String> values) throws IOException {
+        dos.writeInt(values.size());
+        for (String value : values) {
+            dos.writeUTF(value);
+        }
+    }
+
+    private static void readStrings(DataInputStream dis, List<String> target) throws IOException {
+        int count = dis.readInt();
+        for (int i = 0; i < count; i++) {
+            target.add(dis.readUTF());
+        }
+    }
+
+    /**
+     * Parse the {@code ScannerCapabilities} document in a single pass. The
+     * elements are matched by local name only, as not all devices get the
+     * namespaces right.
+     *
+     * @param is
+     * @param debug if {@code true} the received document is echoed to stderr
+     * @throws IOException
+     */
     public void parse(InputStream is, boolean debug) throws IOException {
+        if (debug) {
+            System.err.println("Received:");
+            is = new EchoInputStream(is);
+        }
+        XMLStreamReader reader = null;
         try {
-            DocumentBuilderFactory dbf = DocumentBuilderFactory.newDefaultInstance();
-            dbf.setNamespaceAware(true);
-            byte[] data = is.readAllBytes();
-            if(debug) {
-                System.err.println("Received:");
-                System.err.write(data);
-            }
-            Document doc = dbf.newDocumentBuilder().parse(new ByteArrayInputStream(data));
-            maxHeight = getIntegerFromDocument(doc.getDocumentElement(), NS_SCAN, "MaxHeight");
-            maxWidth = getIntegerFromDocument(doc.getDocumentElement(), NS_SCAN, "MaxWidth");
-            maxResolution = Math.min(
-                getIntegerFromDocument(doc.getDocumentElement(), NS_SCAN, "MaxOpticalXResolution"),
-                getIntegerFromDocument(doc.getDocumentElement(), NS_SCAN, "MaxOpticalYResolution")
-            );
-            colorModes = Collections.unmodifiableList(getChildElementsContent(doc.getDocumentElement(), NS_SCAN, "ColorModes"));
-            defaultColorMode = getChildElementsDefault(doc.getDocumentElement(), NS_SCAN, "ColorModes");
-            contentTypes = Collections.unmodifiableList(getChildElementsContent(doc.getDocumentElement(), NS_SCAN, "ContentTypes"));
-            documentFormats = Collections.unmodifiableList(getChildElementsContent(doc.getDocumentElement(), NS_SCAN, "DocumentFormats"));
-            List<Integer> resolutionsBuilder = new ArrayList<>();
-            NodeList nl = getSingleElement(doc.getDocumentElement(), NS_SCAN, "DiscreteResolutions").getChildNodes();
-            for (int i = 0; i < nl.getLength(); i++) {
-                Node n = nl.item(i);
-                if (n instanceof Element) {
-                    Element e = (Element) n;
-                    Element xresEl = getSingleElement(e, NS_SCAN, "XResolution");
-                    Element yresEl = getSingleElement(e, NS_SCAN, "YResolution");
-                    int xres = Integer.parseInt(xresEl.getTextContent());
-                    int yres = Integer.parseInt(yresEl.getTextContent());
-                    resolutionsBuilder.add(Math.min(xres, yres));
-                    if ("true".equalsIgnoreCase(e.getAttributeNS(NS_SCAN, "default"))
-                        || "true".equalsIgnoreCase(xresEl.getAttributeNS(NS_SCAN, "default"))
-                        || "true".equalsIgnoreCase(yresEl.getAttributeNS(NS_SCAN, "default"))) {
-                        defaultResolution = Math.min(xres, yres);
+            reader = XML_INPUT_FACTORY.createXMLStreamReader(is);
+            List<String> adfOptionsBuilder = new ArrayList<>();
+            StringBuilder text = new StringBuilder();
+            InputSourceCapabilities current = null;
+            SupportedRange range = null;
+            boolean defaultFlag = false;
+            boolean inSupportedIntents = false;
+            boolean resolutionDefault = false;
+            int xResolution = 0;
+            int yResolution = 0;
+
+            while (reader.hasNext()) {
+                int event = reader.next();
+                if (event == XMLStreamConstants.START_ELEMENT) {
+                    text.setLength(0);
+                    defaultFlag = isDefault(reader);
+                    switch (reader.getLocalName()) {
+                        case "PlatenInputCaps":
+                            current = platen = new InputSourceCapabilities();
+                            break;
+                        case "AdfSimplexInputCaps":
+                            current = adfSimplex = new InputSourceCapabilities();
+                            break;
+                        case "AdfDuplexInputCaps":
+                            current = adfDuplex = new InputSourceCapabilities();
+                            break;
+                        case "CompressionFactorSupport":
+                            range = compressionFactorSupport = new SupportedRange();
+                            break;
+                        case "SupportedIntents":
+                            inSupportedIntents = true;
+                            break;
+                        case "DiscreteResolution":
+                            xResolution = 0;
+                            yResolution = 0;
+                            resolutionDefault = defaultFlag;
+                            break;
+                        default:
+                    }
+                } else if (event == XMLStreamConstants.CHARACTERS || event == XMLStreamConstants.CDATA) {
+                    text.append(reader.getTextCharacters(), reader.getTextStart(), reader.getTextLength());
+                } else if (event == XMLStreamConstants.END_ELEMENT) {
+                    String value = text.toString().trim();
+                    text.setLength(0);
+                    String localName = reader.getLocalName();
+                    if (range != null) {
+                        switch (localName) {
+                            case "Min":
+                                range.setMin(Integer.parseInt(value));
+                                break;
+                            case "Max":
+                                range.setMax(Integer.parseInt(value));
+                                break;
+                            case "Normal":
+                                range.setNormal(Integer.parseInt(value));
+                                break;
+                            case "Step":
+                                range.setStep(Integer.parseInt(value));
+                                break;
+                            case "CompressionFactorSupport":
+                                range = null;
+                                break;
+                            default:
+                        }
+                    } else if (current != null) {
+                        switch (localName) {
+                            case "MinWidth":
+                                current.setMinWidth(Integer.parseInt(value));
+                                break;
+                            case "MaxWidth":
+                                current.setMaxWidth(Integer.parseInt(value));
+                                break;
+                            case "MinHeight":
+                                current.setMinHeight(Integer.parseInt(value));
+                                break;
+                            case "MaxHeight":
+                                current.setMaxHeight(Integer.parseInt(value));
+                                break;
+                            case "MaxScanRegions":
+                                current.setMaxScanRegions(Integer.parseInt(value));
+                                break;
+                            case "MaxOpticalXResolution":
+                                current.setMaxOpticalXResolution(Integer.parseInt(value));
+                                break;
+                            case "MaxOpticalYResolution":
+                                current.setMaxOpticalYResolution(Integer.parseInt(value));
+                                break;
+                            case "ColorMode":
+                                addUnique(current.getColorModes(), value);
+                                if (defaultFlag) {
+                                    current.setDefaultColorMode(value);
+                                }
+                                break;
+                            case "ContentType":
+                                addUnique(current.getContentTypes(), value);
+                                break;
+                            case "DocumentFormat":
+                            case "DocumentFormatExt":
+                                addUnique(current.getDocumentFormats(), value);
+                                break;
+                            case "Intent":
+                            case "SupportedIntent":
+                                if (inSupportedIntents) {
+                                    addUnique(current.getSupportedIntents(), value);
+                                }
+                                break;
+                            case "SupportedIntents":
+                                inSupportedIntents = false;
+                                break;
+                            case "XResolution":
+                                xResolution = Integer.parseInt(value);
+                                resolutionDefault |= defaultFlag;
+                                break;
+                            case "YResolution":
+                                yResolution = Integer.parseInt(value);
+                                resolutionDefault |= defaultFlag;
+                                break;
+                            case "DiscreteResolution":
+                                int resolution = Math.min(xResolution, yResolution);
+                                if (!current.getResolutions().contains(resolution)) {
+                                    current.getResolutions().add(resolution);
+                                }
+                                if (resolutionDefault) {
+                                    current.setDefaultResolution(resolution);
+                                }
+                                break;
+                            case "PlatenInputCaps":
+                            case "AdfSimplexInputCaps":
+                            case "AdfDuplexInputCaps":
+                                current = null;
+                                break;
+                            default:
+                        }
+                    } else {
+                        switch (localName) {
+                            case "Version":
+                                version = value;
+                                break;
+                            case "MakeAndModel":
+                                makeAndModel = value;
+                                break;
+                            case "SerialNumber":
+                                serialNumber = value;
+                                break;
+                            case "UUID":
+                                uuid = value;
+                                break;
+                            case "AdminURI":
+                                adminUri = value;
+                                break;
+                            case "FeederCapacity":
+                                feederCapacity = Integer.parseInt(value);
+                                break;
+                            case "AdfOption":
+                                adfOptionsBuilder.add(value);
+                                break;
+                            default:
+                        }
                     }
+                    // The default marker is only valid for the element it was
+                    // declared on
+                    defaultFlag = false;
                 }
             }
-            resolutions = Collections.unmodifiableList(resolutionsBuilder);
-        } catch (ParserConfigurationException | SAXException | NumberFormatException ex) {
+            adfOptions = Collections.unmodifiableList(adfOptionsBuilder);
+        } catch (XMLStreamException | NumberFormatException ex) {
             throw new IOException(ex);
+        } finally {
+            if (reader != null) {
+                try {
+                    reader.close();
+                } catch (XMLStreamException ex) {
+                    // Ignore, the stream is closed by the caller
+                }
+            }
+        }
+        if (getDefaultInputSource() == null) {
+            throw new IOException("Scanner capabilities do not describe any input source");
         }
     }
 
-    private List<String> getChildElementsContent(Element document, String ns, String tag) throws IOException {
-        NodeList nl = getSingleElement(document, ns, tag).getChildNodes();
-        List<String> result = new ArrayList<>();
-        for(int i = 0; i < nl.getLength(); i++) {
-            Node n = nl.item(i);
-            if(n instanceof Element) {
-                Element e = (Element) n;
-                result.add(e.getTextContent());
+    private static boolean isDefault(XMLStreamReader reader) {
+        for (int i = 0; i < reader.getAttributeCount(); i++) {
+            if ("default".equals(reader.getAttributeLocalName(i))
+                && "true".equalsIgnoreCase(reader.getAttributeValue(i))) {
+                return true;
             }
         }
-        return result;
+        return false;
     }
 
-    private String getChildElementsDefault(Element document, String ns, String tag) throws IOException {
-        NodeList nl = getSingleElement(document, ns, tag).getChildNodes();
-        for(int i = 0; i < nl.getLength(); i++) {
-            Node n = nl.item(i);
-            if(n instanceof Element) {
-                Element e = (Element) n;
-                if("true".equalsIgnoreCase(e.getAttributeNS(NS_SCAN, "default"))) {
-                    return e.getTextContent();
-                }
-            }
+    private static void addUnique(List<String> list, String value) {
+        if (!list.contains(value)) {
+            list.add(value);
         }
-        return null;
     }
 
-    private int getIntegerFromDocument(Element document, String ns, String tag) throws IOException {
-        try {
-            return Integer.parseInt(getSingleElement(document, ns, tag).getTextContent());
-        } catch (NumberFormatException ex) {
-            throw new IOException(ex);
-        }
+    private static XMLInputFactory createInputFactory() {
+        XMLInputFactory xif = XMLInputFactory.newFactory();
+        xif.setProperty(XMLInputFactory.IS_NAMESPACE_AWARE, true);
+        xif.setProperty(XMLInputFactory.IS_COALESCING, false);
+        xif.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        xif.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        return xif;
     }
 
-    private Element getSingleElement(Element document, String ns, String tag) throws IOException {
-        NodeList nl = document.getElementsByTagNameNS(ns, tag);
-        if(nl.getLength() != 1) {
-            throw new IOException(String.format("Found %d instances for %s:%s", nl.getLength(), ns, tag));
+    /**
+     * Copies all data read from the wrapped stream to stderr.
+     */
+    private static class EchoInputStream extends FilterInputStream {
+
+        EchoInputStream(InputStream in) {
+            super(in);
         }
-        return (Element) nl.item(0);
-    }
 
+        @Override
+        public int read() throws IOException {
+            int read = super.read();
+            if (read >= 0) {
+                System.err.write(read);
+            }
+            return read;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int read = super.read(b, off, len);
+            if (read > 0) {
+                System.err.write(b, off, read);
+            }
+            return read;
+        }
+    }
 }
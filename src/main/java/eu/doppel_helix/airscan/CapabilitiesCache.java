@@ -0,0 +1,156 @@
+/*
+ * Copyright 2026 Matthias Bläsing
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.doppel_helix.airscan;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.UUID;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Stores parsed {@link Capabilities} per device together with the HTTP
+ * validators ({@code ETag}, {@code Last-Modified}) of the response, so that
+ * the capabilities can be revalidated with a conditional request.
+ */
+public class CapabilitiesCache {
+
+    private static final Logger LOG = Logger.getLogger(CapabilitiesCache.class.getName());
+
+    private static final int MAGIC = 0x65534331; // "eSC1"
+    private static final int FORMAT_VERSION = 2;
+
+    private final Path directory;
+
+    public CapabilitiesCache(Path cacheDirectory) {
+        this.directory = cacheDirectory.resolve("capabilities");
+    }
+
+    /**
+     * Build the cache key for a device. The UUID from the TXT record is
+     * preferred as it is stable across address changes.
+     *
+     * @param service the service the URL was discovered from, may be
+     * {@code null}
+     * @param url the eSCL base URL
+     * @return
+     */
+    public static String keyFor(ScannerService service, String url) {
+        if (service != null && service.getTxt().get("uuid") != null) {
+            return "uuid:" + service.getTxt().get("uuid");
+        }
+        return "url:" + url;
+    }
+
+    public Entry load(String key) {
+        try (DataInputStream dis = new DataInputStream(new BufferedInputStream(Files.newInputStream(fileFor(key))))) {
+            if (dis.readInt() != MAGIC || dis.readInt() != FORMAT_VERSION) {
+                return null;
+            }
+            if (!key.equals(dis.readUTF())) {
+                return null;
+            }
+            long fetched = dis.readLong();
+            String etag = readNullableString(dis);
+            String lastModified = readNullableString(dis);
+            Capabilities capabilities = Capabilities.readFrom(dis);
+            return new Entry(capabilities, etag, lastModified, fetched);
+        } catch (NoSuchFileException ex) {
+            return null;
+        } catch (IOException ex) {
+            LOG.log(Level.FINE, "Failed to read capabilities cache", ex);
+            return null;
+        }
+    }
+
+    public void store(String key, Entry entry) throws IOException {
+        Files.createDirectories(directory);
+        Path file = fileFor(key);
+        Path tempFile = Files.createTempFile(directory, file.getFileName().toString(), ".tmp");
+        try {
+            try (DataOutputStream dos = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tempFile)))) {
+                dos.writeInt(MAGIC);
+                dos.writeInt(FORMAT_VERSION);
+                dos.writeUTF(key);
+                dos.writeLong(entry.getFetched());
+                writeNullableString(dos, entry.getEtag());
+                writeNullableString(dos, entry.getLastModified());
+                entry.getCapabilities().writeTo(dos);
+            }
+            Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(tempFile);
+        }
+    }
+
+    private Path fileFor(String key) {
+        return directory.resolve(UUID.nameUUIDFromBytes(key.getBytes(StandardCharsets.UTF_8)) + ".bin");
+    }
+
+    static void writeNullableString(DataOutputStream dos, String value) throws IOException {
+        dos.writeBoolean(value != null);
+        if (value != null) {
+            dos.writeUTF(value);
+        }
+    }
+
+    static String readNullableString(DataInputStream dis) throws IOException {
+        return dis.readBoolean() ? dis.readUTF() : null;
+    }
+
+    public static class Entry {
+        private final Capabilities capabilities;
+        private final String etag;
+        private final String lastModified;
+        private final long fetched;
+
+        public Entry(Capabilities capabilities, String etag, String lastModified, long fetched) {
+            this.capabilities = capabilities;
+            this.etag = etag;
+            this.lastModified = lastModified;
+            this.fetched = fetched;
+        }
+
+        public Capabilities getCapabilities() {
+            return capabilities;
+        }
+
+        public String getEtag() {
+            return etag;
+        }
+
+        public String getLastModified() {
+            return lastModified;
+        }
+
+        public long getFetched() {
+            return fetched;
+        }
+
+        public boolean hasValidators() {
+            return etag != null || lastModified != null;
+        }
+    }
+}
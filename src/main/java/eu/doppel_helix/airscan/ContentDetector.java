@@ -0,0 +1,265 @@
+/*
+ * Copyright 2026 Matthias Bläsing
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.doppel_helix.airscan;
+
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Finds the content of a (low resolution) preview scan. The background is
+ * estimated from the border of the image, every pixel whose luminance
+ * differs by more than a threshold is considered content.
+ */
+public class ContentDetector {
+
+    private static final int THRESHOLD = 40;
+
+    private final BufferedImage image;
+    private final int width;
+    private final int height;
+    private final boolean[] content;
+
+    public ContentDetector(BufferedImage image) {
+        this.image = image;
+        this.width = image.getWidth();
+        this.height = image.getHeight();
+        this.content = new boolean[width * height];
+        int background = background();
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                content[y * width + x] = Math.abs(luminance(x, y) - background) > THRESHOLD;
+            }
+        }
+    }
+
+    /**
+     * @return bounding box of the content in pixels or {@code null} if the
+     * preview is blank
+     */
+    public Rectangle getBoundingBox() {
+        // A row/column only counts if more than a few pixels are set, so
+        // that dust and sensor noise do not extend the box
+        int minRow = Math.max(1, width / 200);
+        int minColumn = Math.max(1, height / 200);
+        int[] rows = new int[height];
+        int[] columns = new int[width];
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                if (content[y * width + x]) {
+                    rows[y]++;
+                    columns[x]++;
+                }
+            }
+        }
+        int top = first(rows, minRow);
+        int left = first(columns, minColumn);
+        if (top < 0 || left < 0) {
+            return null;
+        }
+        int bottom = last(rows, minRow);
+        int right = last(columns, minColumn);
+        return new Rectangle(left, top, right - left + 1, bottom - top + 1);
+    }
+
+    /**
+     * @param marginX columns ignored on the left and right side
+     * @param marginY rows ignored on the top and bottom
+     * @return fraction of content pixels inside the margins
+     */
+    public double getCoverage(int marginX, int marginY) {
+        long count = 0;
+        for (int y = marginY; y < height - marginY; y++) {
+            for (int x = marginX; x < width - marginX; x++) {
+                if (content[y * width + x]) {
+                    count++;
+                }
+            }
+        }
+        return count / (double) ((width - 2L * marginX) * (height - 2L * marginY));
+    }
+
+    /**
+     * Find separate objects. Content pixels are grouped into cells of about
+     * 1% of the image width, neighbouring occupied cells form one object.
+     * Objects smaller than 0.1% of the image area are dropped as noise.
+     *
+     * @return bounding boxes of the objects in pixels, ordered top to bottom,
+     * left to right
+     */
+    public List<Rectangle> getObjects() {
+        int cell = Math.max(2, width / 100);
+        int columns = (width + cell - 1) / cell;
+        int rows = (height + cell - 1) / cell;
+        boolean[] occupied = new boolean[columns * rows];
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                if (content[y * width + x]) {
+                    occupied[(y / cell) * columns + x / cell] = true;
+                }
+            }
+        }
+
+        List<Rectangle> objects = new ArrayList<>();
+        boolean[] visited = new boolean[occupied.length];
+        ArrayDeque<Integer> queue = new ArrayDeque<>();
+        long minArea = (long) width * height / 1000;
+        for (int start = 0; start < occupied.length; start++) {
+            if ((!occupied[start]) || visited[start]) {
+                continue;
+            }
+            int minColumn = Integer.MAX_VALUE;
+            int minRow = Integer.MAX_VALUE;
+            int maxColumn = -1;
+            int maxRow = -1;
+            visited[start] = true;
+            queue.add(start);
+            while (!queue.isEmpty()) {
+                int index = queue.poll();
+                int column = index % columns;
+                int row = index / columns;
+                minColumn = Math.min(minColumn, column);
+                maxColumn = Math.max(maxColumn, column);
+                minRow = Math.min(minRow, row);
+                maxRow = Math.max(maxRow, row);
+                for (int dy = -1; dy <= 1; dy++) {
+                    for (int dx = -1; dx <= 1; dx++) {
+                        int neighbourColumn = column + dx;
+                        int neighbourRow = row + dy;
+                        if (neighbourColumn < 0 || neighbourColumn >= columns || neighbourRow < 0 || neighbourRow >= rows) {
+                            continue;
+                        }
+                        int neighbour = neighbourRow * columns + neighbourColumn;
+                        if (occupied[neighbour] && (!visited[neighbour])) {
+                            visited[neighbour] = true;
+                            queue.add(neighbour);
+                        }
+                    }
+                }
+            }
+            Rectangle cells = new Rectangle(
+                minColumn * cell, minRow * cell,
+                Math.min(width, (maxColumn + 1) * cell) - minColumn * cell,
+                Math.min(height, (maxRow + 1) * cell) - minRow * cell);
+            Rectangle object = tighten(cells);
+            if (object != null && (long) object.width * object.height >= minArea) {
+                objects.add(object);
+            }
+        }
+        // Reading order: objects whose top edges lie in the same band are
+        // treated as one row
+        int band = cell * 4;
+        objects.sort(Comparator.<Rectangle>comparingInt(r -> r.y / band).thenComparingInt(r -> r.x));
+        return objects;
+    }
+
+    /**
+     * Shrink a rectangle to the content pixels inside it.
+     */
+    private Rectangle tighten(Rectangle area) {
+        int left = Integer.MAX_VALUE;
+        int top = Integer.MAX_VALUE;
+        int right = -1;
+        int bottom = -1;
+        for (int y = area.y; y < area.y + area.height; y++) {
+            for (int x = area.x; x < area.x + area.width; x++) {
+                if (content[y * width + x]) {
+                    left = Math.min(left, x);
+                    right = Math.max(right, x);
+                    top = Math.min(top, y);
+                    bottom = Math.max(bottom, y);
+                }
+            }
+        }
+        return right < 0 ? null : new Rectangle(left, top, right - left + 1, bottom - top + 1);
+    }
+
+    /**
+     * Convert a pixel rectangle of the preview into a scan region.
+     *
+     * @param box rectangle in preview pixels
+     * @param resolution resolution of the preview
+     * @param margin margin added on each side in threehundredths of inches
+     * @param source limits of the input source
+     * @return
+     */
+    public static ScanRegion toScanRegion(Rectangle box, int resolution, int margin, InputSourceCapabilities source) {
+        int x = Math.max(0, box.x * 300 / resolution - margin);
+        int y = Math.max(0, box.y * 300 / resolution - margin);
+        int right = Math.min(source.getMaxWidth(), (int) Math.ceil((box.x + box.width) * 300d / resolution) + margin);
+        int bottom = Math.min(source.getMaxHeight(), (int) Math.ceil((box.y + box.height) * 300d / resolution) + margin);
+        int regionWidth = Math.max(right - x, source.getMinWidth());
+        int regionHeight = Math.max(bottom - y, source.getMinHeight());
+        // Growing to the minimum size must not move the region off the platen
+        x = Math.max(0, Math.min(x, source.getMaxWidth() - regionWidth));
+        y = Math.max(0, Math.min(y, source.getMaxHeight() - regionHeight));
+        return new ScanRegion(x, y, regionWidth, regionHeight);
+    }
+
+    private int background() {
+        int[] histogram = new int[256];
+        int count = 0;
+        for (int x = 0; x < width; x++) {
+            histogram[luminance(x, 0)]++;
+            histogram[luminance(x, height - 1)]++;
+            count += 2;
+        }
+        for (int y = 1; y < height - 1; y++) {
+            histogram[luminance(0, y)]++;
+            histogram[luminance(width - 1, y)]++;
+            count += 2;
+        }
+        // Median of the border pixels
+        int seen = 0;
+        for (int i = 0; i < histogram.length; i++) {
+            seen += histogram[i];
+            if (seen * 2 >= count) {
+                return i;
+            }
+        }
+        return 255;
+    }
+
+    private int luminance(int x, int y) {
+        int rgb = image.getRGB(x, y);
+        int r = (rgb >> 16) & 0xff;
+        int g = (rgb >> 8) & 0xff;
+        int b = rgb & 0xff;
+        return (r * 299 + g * 587 + b * 114) / 1000;
+    }
+
+    private static int first(int[] counts, int min) {
+        for (int i = 0; i < counts.length; i++) {
+            if (counts[i] >= min) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static int last(int[] counts, int min) {
+        for (int i = counts.length - 1; i >= 0; i--) {
+            if (counts[i] >= min) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,153 @@
+/*
+ * Copyright 2026 Matthias Bläsing
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.doppel_helix.airscan;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Persists the result of a MDNS scan, so that subsequent runs can skip the
+ * discovery phase. Entries older than the supplied TTL are ignored.
+ */
+public class DiscoveryCache {
+
+    private static final Logger LOG = Logger.getLogger(DiscoveryCache.class.getName());
+
+    private static final String FILE_NAME = "scanners.properties";
+
+    private final Path file;
+
+    public DiscoveryCache(Path directory) {
+        this.file = directory.resolve(FILE_NAME);
+    }
+
+    /**
+     * Load the cached services.
+     *
+     * @param ttlSeconds maximum age of an entry
+     * @return cached services or an empty list if the cache is missing,
+     * unreadable or expired
+     */
+    public List<ScannerService> load(long ttlSeconds) {
+        long oldest = System.currentTimeMillis() - ttlSeconds * 1000L;
+        List<ScannerService> result = new ArrayList<>();
+        for (Entry entry : readEntries().values()) {
+            if (entry.timestamp >= oldest) {
+                result.add(entry.service);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Add or refresh the supplied services. Entries for other services are
+     * kept, so that a discovery run, that stopped at the first match does not
+     * evict the other scanners.
+     *
+     * @param services
+     * @throws IOException
+     */
+    public void update(List<ScannerService> services) throws IOException {
+        Map<String, Entry> entries = readEntries();
+        long now = System.currentTimeMillis();
+        for (ScannerService service : services) {
+            entries.put(service.getName(), new Entry(service, now));
+        }
+
+        Properties properties = new Properties();
+        properties.setProperty("scanner.count", Integer.toString(entries.size()));
+        int i = 0;
+        for (Entry entry : entries.values()) {
+            String prefix = "scanner." + i + ".";
+            properties.setProperty(prefix + "timestamp", Long.toString(entry.timestamp));
+            properties.setProperty(prefix + "name", entry.service.getName());
+            properties.setProperty(prefix + "txt", Base64.getEncoder().encodeToString(entry.service.getTxtBytes()));
+            properties.setProperty(prefix + "hosts", String.join(",", entry.service.getHostAddresses()));
+            properties.setProperty(prefix + "port", Integer.toString(entry.service.getPort()));
+            i++;
+        }
+
+        Files.createDirectories(file.getParent());
+        Path tempFile = Files.createTempFile(file.getParent(), FILE_NAME, ".tmp");
+        try {
+            try (OutputStream os = Files.newOutputStream(tempFile)) {
+                properties.store(os, "airscan-cli discovery cache");
+            }
+            Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(tempFile);
+        }
+    }
+
+    private Map<String, Entry> readEntries() {
+        Map<String, Entry> result = new LinkedHashMap<>();
+        Properties properties = new Properties();
+        try (InputStream is = Files.newInputStream(file)) {
+            properties.load(is);
+        } catch (NoSuchFileException ex) {
+            return result;
+        } catch (IOException ex) {
+            LOG.log(Level.FINE, "Failed to read discovery cache", ex);
+            return result;
+        }
+
+        try {
+            int count = Integer.parseInt(properties.getProperty("scanner.count", "0"));
+            for (int i = 0; i < count; i++) {
+                String prefix = "scanner." + i + ".";
+                String hosts = properties.getProperty(prefix + "hosts", "");
+                ScannerService service = new ScannerService(
+                    properties.getProperty(prefix + "name"),
+                    Base64.getDecoder().decode(properties.getProperty(prefix + "txt", "")),
+                    hosts.isEmpty() ? Collections.emptyList() : Arrays.asList(hosts.split(",")),
+                    Integer.parseInt(properties.getProperty(prefix + "port"))
+                );
+                long timestamp = Long.parseLong(properties.getProperty(prefix + "timestamp", "0"));
+                result.put(service.getName(), new Entry(service, timestamp));
+            }
+        } catch (IllegalArgumentException | NullPointerException ex) {
+            LOG.log(Level.FINE, "Discovery cache is corrupt", ex);
+            result.clear();
+        }
+        return result;
+    }
+
+    private static class Entry {
+        private final ScannerService service;
+        private final long timestamp;
+
+        Entry(ScannerService service, long timestamp) {
+            this.service = service;
+            this.timestamp = timestamp;
+        }
+    }
+}
@@ -0,0 +1,33 @@
+/*
+ * Copyright 2026 Matthias Bläsing
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.doppel_helix.airscan;
+
+/**
+ * Order in which a scanner delivers the sides of a duplex scan.
+ */
+public enum DuplexOrder {
+    /**
+     * Front and back of each sheet alternate, this is already the document
+     * order.
+     */
+    INTERLEAVED,
+    /**
+     * All front sides are delivered first, followed by the back sides in
+     * reverse order (the order of a flipped stack).
+     */
+    FRONTS_FIRST
+}
@@ -0,0 +1,95 @@
+/*
+ * Copyright 2026 Matthias Bläsing
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.doppel_helix.airscan;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Restores document order for scanners, that deliver all front sides first
+ * and the back sides afterwards in reverse order
+ * ({@link DuplexOrder#FRONTS_FIRST}). As the split between fronts and backs
+ * is only known after the last page, pages are spooled to temporary files
+ * and passed on in document order when the sink is closed.
+ */
+public class DuplexReorderSink implements PageSink {
+
+    private final PageSink delegate;
+    private final List<Path> spooled = new ArrayList<>();
+    private final List<String> contentTypes = new ArrayList<>();
+    private Path spoolDirectory;
+
+    public DuplexReorderSink(PageSink delegate) {
+        this.delegate = delegate;
+    }
+
+    @Override
+    public void write(Page page) throws IOException {
+        if (spoolDirectory == null) {
+            spoolDirectory = Files.createTempDirectory("airscan-duplex");
+        }
+        Path file = spoolDirectory.resolve(Integer.toString(spooled.size()));
+        Files.write(file, page.getData());
+        spooled.add(file);
+        contentTypes.add(page.getContentType());
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            int count = spooled.size();
+            int fronts = (count + 1) / 2;
+            int pageNumber = 1;
+            for (int sheet = 0; sheet < fronts; sheet++) {
+                forward(sheet, pageNumber++);
+                int back = count - 1 - sheet;
+                if (back >= fronts) {
+                    forward(back, pageNumber++);
+                }
+            }
+            delegate.close();
+        } finally {
+            deleteSpool();
+        }
+    }
+
+    @Override
+    public void abort() {
+        try {
+            deleteSpool();
+        } catch (IOException ex) {
+            // Spool is located in a temporary directory
+        }
+        delegate.abort();
+    }
+
+    private void deleteSpool() throws IOException {
+        for (Path file : spooled) {
+            Files.deleteIfExists(file);
+        }
+        if (spoolDirectory != null) {
+            Files.deleteIfExists(spoolDirectory);
+        }
+    }
+
+    private void forward(int index, int pageNumber) throws IOException {
+        delegate.write(new Page(pageNumber, contentTypes.get(index), Files.readAllBytes(spooled.get(index))));
+    }
+}
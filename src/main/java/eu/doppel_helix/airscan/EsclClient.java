@@ -0,0 +1,252 @@
+/*
+ * Copyright 2026 Matthias Bläsing
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.doppel_helix.airscan;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * HTTP access to the eSCL endpoints of a single scanner. All requests share
+ * one {@link HttpClient}, so that connections are kept alive and reused for
+ * capabilities, status, job creation and page transfer.
+ */
+public class EsclClient {
+
+    private static final String SEPARATOR = "================================================================================";
+
+    private final URI baseUri;
+    private final Duration requestTimeout;
+    private final boolean debug;
+    private final ExecutorService executor;
+    private final HttpClient httpClient;
+
+    /**
+     * @param baseUrl eSCL base URL, ending with a slash
+     * @param connectTimeout timeout for establishing a connection
+     * @param requestTimeout timeout until the response headers are received
+     * @param debug log requests to stderr
+     */
+    public EsclClient(String baseUrl, Duration connectTimeout, Duration requestTimeout, boolean debug) {
+        this.baseUri = URI.create(baseUrl);
+        this.requestTimeout = requestTimeout;
+        this.debug = debug;
+        this.executor = Executors.newCachedThreadPool(r -> {
+            Thread thread = new Thread(r, "airscan-http");
+            thread.setDaemon(true);
+            return thread;
+        });
+        // Embedded scanner web servers don't speak HTTP/2 and some of them
+        // choke on the upgrade headers, so stay with HTTP/1.1
+        this.httpClient = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(connectTimeout)
+            .followRedirects(HttpClient.Redirect.NORMAL)
+            .executor(executor)
+            .build();
+    }
+
+    public URI getBaseUri() {
+        return baseUri;
+    }
+
+    /**
+     * Resolve a (possibly relative) URI reported by the scanner, for
+     * example the {@code Location} header of a new job.
+     *
+     * @param location
+     * @return
+     */
+    public URI resolve(String location) {
+        return baseUri.resolve(location);
+    }
+
+    /**
+     * Fetch and parse the scanner capabilities. If validators are supplied,
+     * the request is sent as conditional request.
+     *
+     * @param etag {@code ETag} of the cached capabilities or {@code null}
+     * @param lastModified {@code Last-Modified} of the cached capabilities or
+     * {@code null}
+     * @return the fetched capabilities, completed with {@code null} if the
+     * scanner reported, that the cached capabilities are still valid
+     */
+    public CompletableFuture<CapabilitiesCache.Entry> getCapabilitiesAsync(String etag, String lastModified) {
+        HttpRequest.Builder builder = request("ScannerCapabilities").GET();
+        if (etag != null) {
+            builder.header("If-None-Match", etag);
+        }
+        if (lastModified != null) {
+            builder.header("If-Modified-Since", lastModified);
+        }
+        return send(builder.build())
+            .thenApplyAsync(response -> {
+                try (InputStream is = response.body()) {
+                    if (response.statusCode() == 304) {
+                        return null;
+                    } else if (response.statusCode() != 200) {
+                        throw new IOException("Failed to retrieve scanner capabilities (HTTP Status " + response.statusCode() + ")");
+                    }
+                    Capabilities c = new Capabilities();
+                    c.parse(is, debug);
+                    return new CapabilitiesCache.Entry(
+                        c,
+                        response.headers().firstValue("ETag").orElse(null),
+                        response.headers().firstValue("Last-Modified").orElse(null),
+                        System.currentTimeMillis());
+                } catch (IOException ex) {
+                    throw new UncheckedIOException(ex);
+                }
+            }, executor);
+    }
+
+    public CompletableFuture<Capabilities> getCapabilitiesAsync() {
+        return getCapabilitiesAsync(null, null).thenApply(CapabilitiesCache.Entry::getCapabilities);
+    }
+
+    /**
+     * Cheap check whether the scanner answers. The status document is
+     * requested, but not parsed.
+     *
+     * @param timeout
+     * @return {@code true} if the scanner responded with 200
+     */
+    public CompletableFuture<Boolean> probeAsync(Duration timeout) {
+        HttpRequest request = request("ScannerStatus").timeout(timeout).GET().build();
+        return httpClient.sendAsync(request, HttpResponse.BodyHandlers.discarding())
+            .thenApply(response -> response.statusCode() == 200)
+            .exceptionally(ex -> false);
+    }
+
+    /**
+     * Fetch and parse the {@code ScannerStatus} document.
+     *
+     * @return
+     */
+    public CompletableFuture<ScannerStatus> getScannerStatusAsync() {
+        return send(request("ScannerStatus").GET().build())
+            .thenApplyAsync(response -> {
+                try (InputStream is = response.body()) {
+                    if (response.statusCode() != 200) {
+                        throw new IOException("Failed to retrieve scanner status (HTTP Status " + response.statusCode() + ")");
+                    }
+                    return ScannerStatus.parse(is);
+                } catch (IOException ex) {
+                    throw new UncheckedIOException(ex);
+                }
+            }, executor);
+    }
+
+    /**
+     * Create a scan job. A scanner answers with 201 and the job URL in the
+     * {@code Location} header, some scanners directly return the document
+     * with status 200.
+     *
+     * @param settings
+     * @return the response, the body has to be closed by the caller
+     */
+    public CompletableFuture<HttpResponse<InputStream>> createScanJobAsync(ScanSettings settings) {
+        String body = settings.toXml();
+        HttpRequest request = request("ScanJobs")
+            .header("Content-Type", "text/xml")
+            .POST(HttpRequest.BodyPublishers.ofString(body))
+            .build();
+        if (debug) {
+            System.err.println(SEPARATOR);
+            System.err.printf("%20s: %s%n", "URL", request.uri());
+            System.err.printf("%20s: %s%n", "Method", request.method());
+            System.err.printf("%20s: %n%s%n%n", "Body", body);
+        }
+        return send(request);
+    }
+
+    /**
+     * Request the next document of a job.
+     *
+     * @param job job URI as returned by {@link #resolve(java.lang.String)}
+     * @return the response, the body has to be closed by the caller
+     */
+    public CompletableFuture<HttpResponse<InputStream>> nextDocumentAsync(URI job) {
+        return send(HttpRequest.newBuilder(jobResource(job, "NextDocument")).timeout(requestTimeout).GET().build());
+    }
+
+    /**
+     * Cancel or remove a job.
+     *
+     * @param job
+     * @return the HTTP status of the response
+     */
+    public CompletableFuture<Integer> deleteJobAsync(URI job) {
+        HttpRequest request = HttpRequest.newBuilder(job).timeout(requestTimeout).DELETE().build();
+        return httpClient.sendAsync(request, HttpResponse.BodyHandlers.discarding())
+            .thenApply(HttpResponse::statusCode);
+    }
+
+    private static URI jobResource(URI job, String resource) {
+        String path = job.toString();
+        return URI.create(path.endsWith("/") ? path + resource : path + "/" + resource);
+    }
+
+    private HttpRequest.Builder request(String resource) {
+        return HttpRequest.newBuilder(baseUri.resolve(resource)).timeout(requestTimeout);
+    }
+
+    private CompletableFuture<HttpResponse<InputStream>> send(HttpRequest request) {
+        return httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofInputStream());
+    }
+
+    /**
+     * Wait for the result of one of the asynchronous operations and unwrap
+     * the failure.
+     *
+     * @param <T>
+     * @param future
+     * @return
+     * @throws IOException
+     */
+    public static <T> T await(CompletableFuture<T> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException ex) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for scanner");
+        } catch (ExecutionException ex) {
+            Throwable cause = ex.getCause();
+            while ((cause instanceof CompletionException || cause instanceof UncheckedIOException) && cause.getCause() != null) {
+                cause = cause.getCause();
+            }
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            } else if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new IOException(cause);
+        }
+    }
+}
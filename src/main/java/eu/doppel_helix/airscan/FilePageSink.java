@@ -0,0 +1,86 @@
+/*
+ * Copyright 2026 Matthias Bläsing
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.doppel_helix.airscan;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.regex.Pattern;
+
+/**
+ * Writes each page into a file. In numbered mode the page number is added
+ * to the filename: if the filename contains an integer conversion it is used
+ * as format pattern ({@code scan-%04d.jpg}), else the number is inserted
+ * before the extension ({@code output.jpg} becomes {@code output-001.jpg},
+ * {@code scan 50%.jpg} becomes {@code scan 50%-001.jpg}).
+ *
+ * <p>
+ * Every file is written through {@link AtomicFile}, so a failed transfer
+ * never leaves a truncated file.</p>
+ */
+public class FilePageSink implements PageSink {
+
+    // Exactly one integer conversion, other percent signs have to be escaped
+    private static final Pattern PAGE_PATTERN = Pattern.compile("([^%]|%%)*%0?\\d*d([^%]|%%)*");
+
+    private final File outputFile;
+    private final boolean numbered;
+    private final SyncPolicy syncPolicy;
+
+    public FilePageSink(File outputFile, boolean numbered) {
+        this(outputFile, numbered, SyncPolicy.NONE);
+    }
+
+    public FilePageSink(File outputFile, boolean numbered, SyncPolicy syncPolicy) {
+        this.outputFile = outputFile;
+        this.numbered = numbered;
+        this.syncPolicy = syncPolicy;
+    }
+
+    @Override
+    public void write(Page page) throws IOException {
+        File target = fileFor(page.getNumber());
+        AtomicFile.write(target.toPath(), page.getData(), syncPolicy);
+        if (numbered) {
+            System.out.printf("Wrote page %d to: %s%n", page.getNumber(), target);
+        } else {
+            System.out.println("Wrote scan to: " + target);
+        }
+    }
+
+    public File fileFor(int pageNumber) {
+        if (!numbered) {
+            return outputFile;
+        }
+        String name = outputFile.getName();
+        String numberedName;
+        if (PAGE_PATTERN.matcher(name).matches()) {
+            numberedName = String.format(name, pageNumber);
+        } else {
+            int dotPos = name.lastIndexOf('.');
+            if (dotPos > 0) {
+                numberedName = String.format("%s-%03d%s", name.substring(0, dotPos), pageNumber, name.substring(dotPos));
+            } else {
+                numberedName = String.format("%s-%03d", name, pageNumber);
+            }
+        }
+        return new File(outputFile.getParentFile(), numberedName);
+    }
+
+    @Override
+    public void close() throws IOException {
+    }
+}
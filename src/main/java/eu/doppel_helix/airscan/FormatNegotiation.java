@@ -0,0 +1,261 @@
+/*
+ * Copyright 2026 Matthias Bläsing
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.doppel_helix.airscan;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Chooses {@code DocumentFormat}, {@code CompressionFactor} and, for a byte
+ * budget, the resolution of a scan from the scanner capabilities and the user
+ * preference.
+ *
+ * <p>
+ * The size estimate used for the byte budget is deliberately simple: raw
+ * image size divided by a typical compression ratio of the format. It is
+ * good enough to choose between resolutions, which dominate the size.</p>
+ */
+public class FormatNegotiation {
+
+    public static final String JPEG = "image/jpeg";
+    public static final String PDF = "application/pdf";
+    public static final String PNG = "image/png";
+    public static final String TIFF = "image/tiff";
+
+    private static final List<String> COMPACT_FORMATS = Arrays.asList(JPEG, PDF);
+    private static final List<String> LOSSLESS_FORMATS = Arrays.asList(PNG, TIFF);
+
+    private FormatNegotiation() {
+    }
+
+    /**
+     * Map short names ({@code jpeg}, {@code pdf}, ...) or file extensions to
+     * the MIME type.
+     *
+     * @param name
+     * @return the MIME type or {@code null} if the name is unknown
+     */
+    public static String mimeTypeFor(String name) {
+        if (name == null) {
+            return null;
+        }
+        switch (name.toLowerCase(Locale.ROOT)) {
+            case "jpg":
+            case "jpeg":
+                return JPEG;
+            case "pdf":
+                return PDF;
+            case "png":
+                return PNG;
+            case "tif":
+            case "tiff":
+                return TIFF;
+            default:
+                return name.contains("/") ? name : null;
+        }
+    }
+
+    /**
+     * Fill document format, compression factor and (if a byte budget is
+     * requested and no explicit resolution was given) the resolution of the
+     * settings.
+     *
+     * @param c
+     * @param source capabilities of the selected input source
+     * @param request
+     * @param settings settings with color mode and resolution already set
+     * @throws IllegalArgumentException if an explicitly requested format is
+     * not supported
+     */
+    public static void apply(Capabilities c, InputSourceCapabilities source, ScanRequest request, ScanSettings settings) {
+        List<String> formats = source.getDocumentFormats();
+        Optimize optimize = request.getOptimize();
+        if (optimize == null && request.getPageBudget() != null) {
+            optimize = Optimize.SIZE;
+        }
+
+        String format = null;
+        if (request.getDocumentFormat() != null) {
+            format = mimeTypeFor(request.getDocumentFormat());
+            if (format == null || (!containsIgnoreCase(formats, format))) {
+                throw new IllegalArgumentException("Scanner does not support document format " + request.getDocumentFormat() + ", supported: " + formats);
+            }
+        }
+        if (format == null && request.getPreferredDocumentFormat() != null) {
+            String preferred = mimeTypeFor(request.getPreferredDocumentFormat());
+            if (preferred != null && containsIgnoreCase(formats, preferred)) {
+                format = preferred;
+            }
+        }
+        if (format == null && optimize != null) {
+            format = firstSupported(formats, optimize == Optimize.QUALITY ? LOSSLESS_FORMATS : COMPACT_FORMATS);
+            if (format == null) {
+                format = firstSupported(formats, optimize == Optimize.QUALITY ? COMPACT_FORMATS : LOSSLESS_FORMATS);
+            }
+        }
+        settings.setDocumentFormat(format);
+        settings.setDocumentFormatExt(format != null && isAtLeast(c.getVersion(), 2, 1));
+
+        SupportedRange compression = c.getCompressionFactorSupport();
+        if (compression != null && optimize != null) {
+            int factor;
+            switch (optimize) {
+                case SIZE:
+                    factor = compression.getMax();
+                    break;
+                case SPEED:
+                    factor = (compression.getNormal() + compression.getMax()) / 2;
+                    break;
+                default:
+                    factor = compression.getMin();
+            }
+            settings.setCompressionFactor(compression.clamp(factor));
+        }
+
+        if (request.getPageBudget() != null && request.getResolution() == null) {
+            fitResolution(source, compression, request.getPageBudget(), settings);
+        }
+    }
+
+    /**
+     * Make sure the pages can be decoded on the client, which is required to
+     * cut regions out of them.
+     *
+     * @param source
+     * @param request
+     * @param settings
+     * @throws IllegalArgumentException if the scanner offers no decodable
+     * format or another format was explicitly requested
+     */
+    public static void requireDecodable(InputSourceCapabilities source, ScanRequest request, ScanSettings settings) {
+        String format = settings.getDocumentFormat();
+        if (JPEG.equals(format) || PNG.equals(format)) {
+            return;
+        }
+        if (request.getDocumentFormat() != null) {
+            throw new IllegalArgumentException("Regions can only be cut out of JPEG or PNG documents");
+        }
+        format = firstSupported(source.getDocumentFormats(), Arrays.asList(JPEG, PNG));
+        if (format == null) {
+            throw new IllegalArgumentException("Scanner supports only " + source.getMaxScanRegions()
+                + " region(s) and offers no format the regions can be cut out of");
+        }
+        settings.setDocumentFormat(format);
+    }
+
+    /**
+     * Lower the resolution until the estimated page size fits the budget.
+     */
+    private static void fitResolution(InputSourceCapabilities source, SupportedRange compression, long budget, ScanSettings settings) {
+        List<Integer> candidates = new ArrayList<>(source.getResolutions());
+        if (candidates.isEmpty()) {
+            candidates.add(settings.getXResolution());
+        }
+        candidates.sort((a, b) -> Integer.compare(b, a));
+        int selected = candidates.get(candidates.size() - 1);
+        for (int resolution : candidates) {
+            if (resolution <= settings.getXResolution()
+                && estimatePageSize(settings, resolution, compression) <= budget) {
+                selected = resolution;
+                break;
+            }
+        }
+        settings.setXResolution(selected);
+        settings.setYResolution(selected);
+    }
+
+    /**
+     * Estimate the size of one page in bytes.
+     *
+     * @param settings
+     * @param resolution
+     * @param compression supported compression range or {@code null}
+     * @return
+     */
+    public static long estimatePageSize(ScanSettings settings, int resolution, SupportedRange compression) {
+        double pixels = 0;
+        for (ScanRegion region : settings.getRegions()) {
+            pixels += (region.getWidth() / 300d * resolution) * (region.getHeight() / 300d * resolution);
+        }
+        double raw = pixels * bytesPerPixel(settings.getColorMode());
+        String format = settings.getDocumentFormat();
+        double ratio;
+        if (format == null || COMPACT_FORMATS.contains(format)) {
+            // Typical JPEG ratio between 5:1 (weakest) and 20:1 (strongest
+            // compression)
+            double strength = 0.5;
+            if (compression != null && settings.getCompressionFactor() != null && compression.getMax() > compression.getMin()) {
+                strength = (settings.getCompressionFactor() - compression.getMin()) / (double) (compression.getMax() - compression.getMin());
+            }
+            ratio = 5 + strength * 15;
+        } else if (PNG.equals(format)) {
+            ratio = 2;
+        } else {
+            ratio = 1;
+        }
+        return (long) (raw / ratio);
+    }
+
+    private static double bytesPerPixel(String colorMode) {
+        if (colorMode == null) {
+            return 3;
+        } else if (colorMode.startsWith("BlackAndWhite")) {
+            return 1 / 8d;
+        } else if (colorMode.equals("Grayscale16")) {
+            return 2;
+        } else if (colorMode.startsWith("Grayscale")) {
+            return 1;
+        } else if (colorMode.equals("RGB48")) {
+            return 6;
+        }
+        return 3;
+    }
+
+    private static String firstSupported(List<String> supported, List<String> preferred) {
+        for (String format : preferred) {
+            if (containsIgnoreCase(supported, format)) {
+                return format;
+            }
+        }
+        return null;
+    }
+
+    private static boolean containsIgnoreCase(List<String> values, String value) {
+        for (String candidate : values) {
+            if (candidate.equalsIgnoreCase(value)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean isAtLeast(String version, int major, int minor) {
+        if (version == null) {
+            return false;
+        }
+        String[] parts = version.trim().split("\\.");
+        try {
+            int actualMajor = Integer.parseInt(parts[0]);
+            int actualMinor = parts.length > 1 ? Integer.parseInt(parts[1]) : 0;
+            return actualMajor > major || (actualMajor == major && actualMinor >= minor);
+        } catch (NumberFormatException ex) {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,153 @@
+/*
+ * Copyright 2026 Matthias Bläsing
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.doppel_helix.airscan;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Capabilities of a single input source ({@code PlatenInputCaps},
+ * {@code AdfSimplexInputCaps} or {@code AdfDuplexInputCaps}).
+ */
+public class InputSourceCapabilities {
+    private int minWidth;
+    private int maxWidth;
+    private int minHeight;
+    private int maxHeight;
+    private int maxScanRegions = 1;
+    private int maxOpticalXResolution;
+    private int maxOpticalYResolution;
+    private final List<String> colorModes = new ArrayList<>();
+    private final List<String> contentTypes = new ArrayList<>();
+    private final List<String> documentFormats = new ArrayList<>();
+    private final List<Integer> resolutions = new ArrayList<>();
+    private final List<String> supportedIntents = new ArrayList<>();
+    private Integer defaultResolution;
+    private String defaultColorMode;
+
+    public int getMinWidth() {
+        return minWidth;
+    }
+
+    public void setMinWidth(int minWidth) {
+        this.minWidth = minWidth;
+    }
+
+    public int getMaxWidth() {
+        return maxWidth;
+    }
+
+    public void setMaxWidth(int maxWidth) {
+        this.maxWidth = maxWidth;
+    }
+
+    public int getMinHeight() {
+        return minHeight;
+    }
+
+    public void setMinHeight(int minHeight) {
+        this.minHeight = minHeight;
+    }
+
+    public int getMaxHeight() {
+        return maxHeight;
+    }
+
+    public void setMaxHeight(int maxHeight) {
+        this.maxHeight = maxHeight;
+    }
+
+    public int getMaxScanRegions() {
+        return maxScanRegions;
+    }
+
+    public void setMaxScanRegions(int maxScanRegions) {
+        this.maxScanRegions = maxScanRegions;
+    }
+
+    public int getMaxOpticalXResolution() {
+        return maxOpticalXResolution;
+    }
+
+    public void setMaxOpticalXResolution(int maxOpticalXResolution) {
+        this.maxOpticalXResolution = maxOpticalXResolution;
+    }
+
+    public int getMaxOpticalYResolution() {
+        return maxOpticalYResolution;
+    }
+
+    public void setMaxOpticalYResolution(int maxOpticalYResolution) {
+        this.maxOpticalYResolution = maxOpticalYResolution;
+    }
+
+    /**
+     * @return the maximum resolution usable for both axis. If the optical
+     * resolution is not reported, the highest discrete resolution is used.
+     */
+    public int getMaxResolution() {
+        if (maxOpticalXResolution > 0 && maxOpticalYResolution > 0) {
+            return Math.min(maxOpticalXResolution, maxOpticalYResolution);
+        }
+        int max = 0;
+        for (Integer resolution : resolutions) {
+            max = Math.max(max, resolution);
+        }
+        return max;
+    }
+
+    public List<String> getColorModes() {
+        return colorModes;
+    }
+
+    public List<String> getContentTypes() {
+        return contentTypes;
+    }
+
+    public List<String> getDocumentFormats() {
+        return documentFormats;
+    }
+
+    public List<Integer> getResolutions() {
+        return resolutions;
+    }
+
+    public List<String> getSupportedIntents() {
+        return supportedIntents;
+    }
+
+    public Integer getDefaultResolution() {
+        return defaultResolution;
+    }
+
+    public void setDefaultResolution(Integer defaultResolution) {
+        this.defaultResolution = defaultResolution;
+    }
+
+    public String getDefaultColorMode() {
+        return defaultColorMode;
+    }
+
+    public void setDefaultColorMode(String defaultColorMode) {
+        this.defaultColorMode = defaultColorMode;
+    }
+
+    @Override
+    public String toString() {
+        return "InputSourceCapabilities{" + "minWidth=" + minWidth + ", maxWidth=" + maxWidth + ", minHeight=" + minHeight + ", maxHeight=" + maxHeight + ", maxScanRegions=" + maxScanRegions + ", colorModes=" + colorModes + ", contentTypes=" + contentTypes + ", documentFormats=" + documentFormats + ", resolutions=" + resolutions + ", supportedIntents=" + supportedIntents + ", maxResolution=" + getMaxResolution() + '}';
+    }
+}
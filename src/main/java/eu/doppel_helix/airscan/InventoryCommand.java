@@ -0,0 +1,213 @@
+/*
+ * Copyright 2026 Matthias Bläsing
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.doppel_helix.airscan;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import picocli.CommandLine;
+import picocli.CommandLine.Option;
+
+/**
+ * Report capabilities and status of all scanners in the network. The
+ * requests for a scanner are sent as soon as its service is resolved, so the
+ * total runtime is the discovery time plus the slowest scanner, not the sum
+ * over all scanners.
+ */
+@CommandLine.Command(
+    name = "inventory",
+    mixinStandardHelpOptions = true,
+    versionProvider = VersionProvider.class,
+    description = "Fetch capabilities and status of all discovered scanners and write a report"
+)
+public class InventoryCommand implements Callable<Integer> {
+
+    public enum ReportFormat {
+        JSON, CSV
+    }
+
+    private static final List<String> COLUMNS = Arrays.asList(
+        "name", "displayName", "url", "uuid", "makeAndModel", "serialNumber", "adminUri",
+        "state", "adfState", "platen", "adf", "duplex", "maxResolution", "colorModes",
+        "documentFormats", "responseMillis", "error");
+
+    @CommandLine.ParentCommand
+    private SimpleScan parent;
+
+    @Option(names = {"-t", "--timeout"}, description = "Time in seconds to listen for scanners (Default: ${DEFAULT-VALUE})")
+    private int timeout = 5;
+
+    @Option(names = {"--request-timeout"}, description = "Time in seconds to wait for the answers of a scanner (Default: ${DEFAULT-VALUE})")
+    private int requestTimeout = 10;
+
+    @Option(names = {"-f", "--format"}, description = "Report format: ${COMPLETION-CANDIDATES} (Default: ${DEFAULT-VALUE})")
+    private ReportFormat format = ReportFormat.JSON;
+
+    @Option(names = {"-o", "--output"}, description = "Report file (Default: standard output)")
+    private File outputFile;
+
+    private ScanEngine engine;
+    private final Map<String, CompletableFuture<Map<String, Object>>> results = new LinkedHashMap<>();
+
+    @Override
+    public Integer call() throws Exception {
+        ServiceMatcher matcher = new ServiceMatcher(parent.getMatch());
+        try (ScanEngine scanEngine = parent.createEngine()) {
+            engine = scanEngine;
+            if (parent.getScannerUrl() != null) {
+                inspect(null, parent.getScannerUrl());
+            }
+            try (ScannerDiscovery discovery = new ScannerDiscovery()) {
+                Consumer<ScannerService> listener = service -> {
+                    if (matcher.test(service)) {
+                        inspect(service, service.getPreferredUrl());
+                    }
+                };
+                discovery.addListener(listener);
+                // Services resolved before the listener was registered
+                discovery.getServices().forEach(listener);
+                Thread.sleep(timeout * 1000L);
+                discovery.removeListener(listener);
+            }
+
+            List<CompletableFuture<Map<String, Object>>> pending;
+            synchronized (results) {
+                pending = new ArrayList<>(results.values());
+            }
+            List<Map<String, Object>> report = new ArrayList<>(pending.size());
+            for (CompletableFuture<Map<String, Object>> result : pending) {
+                report.add(result.join());
+            }
+
+            if (outputFile == null) {
+                writeReport(System.out, report);
+            } else {
+                try (PrintStream ps = new PrintStream(outputFile, StandardCharsets.UTF_8)) {
+                    writeReport(ps, report);
+                    if (ps.checkError()) {
+                        throw new IOException("Failed to write " + outputFile);
+                    }
+                }
+            }
+            System.err.printf("%20s: %d%n", "Scanners", report.size());
+            return report.isEmpty() ? 1 : 0;
+        }
+    }
+
+    /**
+     * Start fetching capabilities and status of a scanner, if this was not
+     * yet done.
+     */
+    private void inspect(ScannerService service, String url) {
+        String key = service == null ? url : service.getName();
+        synchronized (results) {
+            if (url == null || results.containsKey(key)) {
+                return;
+            }
+            if (parent.isDebug()) {
+                System.err.println("Inspecting " + url);
+            }
+            EsclClient client = engine.getClient(url);
+            long start = System.nanoTime();
+            CompletableFuture<Capabilities> capabilities = client.getCapabilitiesAsync()
+                .orTimeout(requestTimeout, TimeUnit.SECONDS);
+            CompletableFuture<ScannerStatus> status = client.getScannerStatusAsync()
+                .orTimeout(requestTimeout, TimeUnit.SECONDS)
+                .exceptionally(ex -> null);
+            results.put(key, capabilities
+                .thenCombine(status, (c, s) -> row(service, url, c, s, null, start))
+                .exceptionally(ex -> row(service, url, null, status.getNow(null), ex, start)));
+        }
+    }
+
+    private static Map<String, Object> row(ScannerService service, String url, Capabilities c, ScannerStatus s, Throwable error, long start) {
+        Map<String, Object> row = new LinkedHashMap<>();
+        row.put("name", service == null ? url : service.getName());
+        row.put("displayName", service == null ? null : service.getDisplayName());
+        row.put("url", url);
+        row.put("uuid", c != null && c.getUuid() != null ? c.getUuid() : service == null ? null : service.getTxt().get("uuid"));
+        row.put("makeAndModel", c == null ? null : c.getMakeAndModel());
+        row.put("serialNumber", c == null ? null : c.getSerialNumber());
+        row.put("adminUri", c == null ? null : c.getAdminUri());
+        row.put("state", s == null ? null : s.getState());
+        row.put("adfState", s == null ? null : s.getAdfState());
+        row.put("platen", c == null ? null : c.getPlaten() != null);
+        row.put("adf", c == null ? null : c.getAdfSimplex() != null);
+        row.put("duplex", c == null ? null : c.getAdfDuplex() != null);
+        row.put("maxResolution", c == null ? null : c.getMaxResolution());
+        row.put("colorModes", c == null ? null : c.getColorModes());
+        row.put("documentFormats", c == null ? null : c.getDocumentFormats());
+        row.put("responseMillis", TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        while ((error instanceof CompletionException || error instanceof UncheckedIOException) && error.getCause() != null) {
+            error = error.getCause();
+        }
+        if (error == null) {
+            row.put("error", null);
+        } else {
+            row.put("error", error.getMessage() == null
+                ? error.getClass().getSimpleName()
+                : error.getClass().getSimpleName() + ": " + error.getMessage());
+        }
+        return row;
+    }
+
+    private void writeReport(PrintStream out, List<Map<String, Object>> report) {
+        if (format == ReportFormat.JSON) {
+            out.println("[");
+            for (int i = 0; i < report.size(); i++) {
+                out.print("  ");
+                out.print(Json.write(report.get(i)));
+                out.println(i < report.size() - 1 ? "," : "");
+            }
+            out.println("]");
+        } else {
+            out.println(String.join(",", COLUMNS));
+            for (Map<String, Object> row : report) {
+                List<String> cells = new ArrayList<>(COLUMNS.size());
+                for (String column : COLUMNS) {
+                    cells.add(csv(row.get(column)));
+                }
+                out.println(String.join(",", cells));
+            }
+        }
+    }
+
+    private static String csv(Object value) {
+        if (value == null) {
+            return "";
+        }
+        String text = value instanceof List
+            ? String.join(" ", ((List<?>) value).stream().map(String::valueOf).toArray(String[]::new))
+            : value.toString();
+        if (text.contains(",") || text.contains("\"") || text.contains("\n")) {
+            return "\"" + text.replace("\"", "\"\"") + "\"";
+        }
+        return text;
+    }
+}
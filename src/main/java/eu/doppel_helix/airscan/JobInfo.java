@@ -0,0 +1,90 @@
+/*
+ * Copyright 2026 Matthias Bläsing
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.doppel_helix.airscan;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Entry of the job list in the {@code ScannerStatus} document.
+ */
+public class JobInfo {
+    private String jobUri;
+    private String jobUuid;
+    private int age;
+    private int imagesCompleted;
+    private int imagesToTransfer;
+    private JobState jobState = JobState.UNKNOWN;
+    private final List<String> jobStateReasons = new ArrayList<>();
+
+    public String getJobUri() {
+        return jobUri;
+    }
+
+    public void setJobUri(String jobUri) {
+        this.jobUri = jobUri;
+    }
+
+    public String getJobUuid() {
+        return jobUuid;
+    }
+
+    public void setJobUuid(String jobUuid) {
+        this.jobUuid = jobUuid;
+    }
+
+    public int getAge() {
+        return age;
+    }
+
+    public void setAge(int age) {
+        this.age = age;
+    }
+
+    public int getImagesCompleted() {
+        return imagesCompleted;
+    }
+
+    public void setImagesCompleted(int imagesCompleted) {
+        this.imagesCompleted = imagesCompleted;
+    }
+
+    public int getImagesToTransfer() {
+        return imagesToTransfer;
+    }
+
+    public void setImagesToTransfer(int imagesToTransfer) {
+        this.imagesToTransfer = imagesToTransfer;
+    }
+
+    public JobState getJobState() {
+        return jobState;
+    }
+
+    public void setJobState(JobState jobState) {
+        this.jobState = jobState;
+    }
+
+    public List<String> getJobStateReasons() {
+        return jobStateReasons;
+    }
+
+    @Override
+    public String toString() {
+        return "JobInfo{" + "jobUri=" + jobUri + ", jobState=" + jobState + ", imagesCompleted=" + imagesCompleted + ", imagesToTransfer=" + imagesToTransfer + ", jobStateReasons=" + jobStateReasons + '}';
+    }
+}
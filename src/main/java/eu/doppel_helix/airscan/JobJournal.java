@@ -0,0 +1,290 @@
+/*
+ * Copyright 2026 Matthias Bläsing
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.doppel_helix.airscan;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+
+/**
+ * Checkpoint of a multi-page scan, so that an interrupted run can be
+ * continued with {@code --resume}. The journal records the scanner, the
+ * scan job, the settings and every page written so far with its size and
+ * SHA-256 checksum. It is rewritten atomically after each page and removed
+ * when the scan is complete.
+ *
+ * <p>
+ * On resume the pages are verified against the files on disk, the
+ * checkpoint ends at the first missing or modified file. If the scanner
+ * still runs the job, the transfer continues with the next document. Else
+ * a new job is created and the documents already captured are
+ * skipped.</p>
+ */
+public class JobJournal {
+
+    private static final String VERSION = "1";
+
+    private final Path file;
+    private final SyncPolicy syncPolicy;
+    private String scannerUrl;
+    private String jobUri;
+    private String settingsXml;
+    private final List<Entry> pages = new ArrayList<>();
+
+    /**
+     * Create an empty journal, an existing journal file is replaced with the
+     * first checkpoint.
+     *
+     * @param file
+     * @param syncPolicy
+     */
+    public JobJournal(Path file, SyncPolicy syncPolicy) {
+        this.file = file;
+        this.syncPolicy = syncPolicy;
+    }
+
+    /**
+     * @param outputFile
+     * @return location of the journal for scans to the output file
+     */
+    public static Path fileFor(File outputFile) {
+        return outputFile.toPath().resolveSibling(outputFile.getName() + ".journal");
+    }
+
+    /**
+     * Read the journal of an interrupted scan.
+     *
+     * @param file
+     * @param syncPolicy
+     * @return
+     * @throws NoSuchFileException if there is no journal
+     * @throws IOException if the journal can not be read
+     */
+    public static JobJournal load(Path file, SyncPolicy syncPolicy) throws IOException {
+        Properties properties = new Properties();
+        try (InputStream is = Files.newInputStream(file)) {
+            properties.load(is);
+        }
+        if (!VERSION.equals(properties.getProperty("version"))) {
+            throw new IOException("Unsupported journal " + file);
+        }
+        JobJournal journal = new JobJournal(file, syncPolicy);
+        journal.scannerUrl = properties.getProperty("scanner");
+        journal.jobUri = properties.getProperty("job");
+        journal.settingsXml = properties.getProperty("settings");
+        try {
+            int count = Integer.parseInt(properties.getProperty("page.count", "0"));
+            for (int i = 1; i <= count; i++) {
+                String prefix = "page." + i + ".";
+                journal.pages.add(new Entry(
+                    Paths.get(properties.getProperty(prefix + "file")),
+                    Long.parseLong(properties.getProperty(prefix + "size")),
+                    properties.getProperty(prefix + "sha256")
+                ));
+            }
+        } catch (RuntimeException ex) {
+            throw new IOException("Journal " + file + " is corrupt", ex);
+        }
+        if (journal.scannerUrl == null || journal.settingsXml == null) {
+            throw new IOException("Journal " + file + " is corrupt");
+        }
+        return journal;
+    }
+
+    public Path getFile() {
+        return file;
+    }
+
+    public synchronized String getScannerUrl() {
+        return scannerUrl;
+    }
+
+    /**
+     * @return the job of the interrupted run or {@code null}
+     */
+    public synchronized URI getJobUri() {
+        return jobUri == null || jobUri.isEmpty() ? null : URI.create(jobUri);
+    }
+
+    public synchronized String getSettingsXml() {
+        return settingsXml;
+    }
+
+    /**
+     * @return number of pages captured
+     */
+    public synchronized int getPages() {
+        return pages.size();
+    }
+
+    /**
+     * Record the job the pages are fetched from.
+     *
+     * @param scannerUrl
+     * @param job job URI or {@code null} if the scanner delivered the
+     * document directly
+     * @param settingsXml
+     * @throws IOException
+     */
+    public synchronized void start(String scannerUrl, URI job, String settingsXml) throws IOException {
+        this.scannerUrl = scannerUrl;
+        this.jobUri = job == null ? null : job.toString();
+        this.settingsXml = settingsXml;
+        save();
+    }
+
+    /**
+     * Record a page after it was written.
+     *
+     * @param number page number, pages have to be recorded in order
+     * @param pageFile
+     * @param data
+     * @throws IOException
+     */
+    public synchronized void pageWritten(int number, Path pageFile, byte[] data) throws IOException {
+        if (number != pages.size() + 1) {
+            throw new IllegalStateException("Page " + number + " recorded after page " + pages.size());
+        }
+        pages.add(new Entry(pageFile.toAbsolutePath(), data.length, sha256(data)));
+        save();
+    }
+
+    /**
+     * Check the recorded pages against the files on disk. The checkpoint is
+     * moved back to the last page before the first missing or modified
+     * file.
+     *
+     * @return number of valid pages
+     * @throws IOException
+     */
+    public synchronized int verify() throws IOException {
+        int valid = 0;
+        for (Entry entry : pages) {
+            if (!entry.matches()) {
+                break;
+            }
+            valid++;
+        }
+        if (valid < pages.size()) {
+            pages.subList(valid, pages.size()).clear();
+            save();
+        }
+        return valid;
+    }
+
+    /**
+     * Remove the journal, called when the scan is complete.
+     *
+     * @throws IOException
+     */
+    public void delete() throws IOException {
+        Files.deleteIfExists(file);
+    }
+
+    /**
+     * @param delegate
+     * @return sink recording each page written by the delegate
+     */
+    public PageSink record(FilePageSink delegate) {
+        return new PageSink() {
+            @Override
+            public void write(Page page) throws IOException {
+                delegate.write(page);
+                pageWritten(page.getNumber(), delegate.fileFor(page.getNumber()).toPath(), page.getData());
+            }
+
+            @Override
+            public void close() throws IOException {
+                delegate.close();
+            }
+
+            @Override
+            public void abort() {
+                delegate.abort();
+            }
+        };
+    }
+
+    private void save() throws IOException {
+        Properties properties = new Properties();
+        properties.setProperty("version", VERSION);
+        properties.setProperty("scanner", scannerUrl);
+        if (jobUri != null) {
+            properties.setProperty("job", jobUri);
+        }
+        properties.setProperty("settings", settingsXml);
+        properties.setProperty("page.count", Integer.toString(pages.size()));
+        for (int i = 0; i < pages.size(); i++) {
+            Entry entry = pages.get(i);
+            String prefix = "page." + (i + 1) + ".";
+            properties.setProperty(prefix + "file", entry.file.toString());
+            properties.setProperty(prefix + "size", Long.toString(entry.size));
+            properties.setProperty(prefix + "sha256", entry.sha256);
+        }
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        properties.store(baos, "airscan-cli scan journal, continue the scan with --resume");
+        AtomicFile.write(file, baos.toByteArray(), syncPolicy);
+    }
+
+    private static String sha256(byte[] data) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(data);
+            StringBuilder sb = new StringBuilder(digest.length * 2);
+            for (byte b : digest) {
+                sb.append(Character.forDigit((b >> 4) & 0xf, 16)).append(Character.forDigit(b & 0xf, 16));
+            }
+            return sb.toString();
+        } catch (NoSuchAlgorithmException ex) {
+            // Every JRE has to provide SHA-256
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    private static class Entry {
+        private final Path file;
+        private final long size;
+        private final String sha256;
+
+        Entry(Path file, long size, String sha256) {
+            this.file = file;
+            this.size = size;
+            this.sha256 = sha256;
+        }
+
+        boolean matches() throws IOException {
+            try {
+                if (Files.size(file) != size) {
+                    return false;
+                }
+                return sha256.equals(sha256(Files.readAllBytes(file)));
+            } catch (NoSuchFileException ex) {
+                return false;
+            }
+        }
+    }
+}
@@ -0,0 +1,53 @@
+/*
+ * Copyright 2026 Matthias Bläsing
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.doppel_helix.airscan;
+
+/**
+ * State of a scan job as reported in {@code JobInfo/JobState}.
+ */
+public enum JobState {
+    PENDING,
+    PROCESSING,
+    COMPLETED,
+    CANCELED,
+    ABORTED,
+    UNKNOWN;
+
+    public boolean isTerminal() {
+        return this == COMPLETED || this == CANCELED || this == ABORTED;
+    }
+
+    public static JobState fromEscl(String value) {
+        if (value == null) {
+            return UNKNOWN;
+        }
+        switch (value.trim()) {
+            case "Pending":
+                return PENDING;
+            case "Processing":
+                return PROCESSING;
+            case "Completed":
+                return COMPLETED;
+            case "Canceled":
+                return CANCELED;
+            case "Aborted":
+                return ABORTED;
+            default:
+                return UNKNOWN;
+        }
+    }
+}
@@ -16,8 +16,6 @@
 
 package eu.doppel_helix.airscan;
 
-import java.nio.charset.StandardCharsets;
-import java.util.HashMap;
 import java.util.Map;
 
 public class MDNSUtil {
@@ -26,24 +24,9 @@ public class MDNSUtil {
      *
      * @param data
      * @return
+     * @see TxtRecord
      */
     public static Map<String,String> parseTxt(byte[] data) {
-        Map<String,String> map = new HashMap<>();
-        int offset = 0;
-        while(offset < data.length) {
-            int length = (int) data[offset];
-            if(length <= 0) {
-                break; // Fishy
-            }
-            String stringData = new String(data, offset + 1, length, StandardCharsets.UTF_8);
-            int eqPos = stringData.indexOf("=");
-            if(eqPos >= 0) {
-                map.put(stringData.substring(0, eqPos), stringData.substring(eqPos + 1));
-            } else {
-                map.put(stringData, null);
-            }
-            offset += length + 1;
-        }
-        return map;
+        return new TxtRecord(data).toMap();
     }
 }
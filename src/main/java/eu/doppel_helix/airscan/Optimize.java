@@ -0,0 +1,36 @@
+/*
+ * Copyright 2026 Matthias Bläsing
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.doppel_helix.airscan;
+
+/**
+ * Preference used to choose document format and compression.
+ */
+public enum Optimize {
+    /**
+     * Smallest transfer: compressed format with the strongest compression.
+     */
+    SIZE,
+    /**
+     * Short transfer without hurting the quality much: compressed format,
+     * compression between the scanner default and the maximum.
+     */
+    SPEED,
+    /**
+     * Best image: lossless format if available, weakest compression.
+     */
+    QUALITY
+}
@@ -0,0 +1,50 @@
+/*
+ * Copyright 2026 Matthias Bläsing
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.doppel_helix.airscan;
+
+/**
+ * A single document as returned by {@code NextDocument}.
+ */
+public class Page {
+    private final int number;
+    private final String contentType;
+    private final byte[] data;
+
+    /**
+     * @param number 1-based page number
+     * @param contentType content type reported by the scanner, may be
+     * {@code null}
+     * @param data
+     */
+    public Page(int number, String contentType, byte[] data) {
+        this.number = number;
+        this.contentType = contentType;
+        this.data = data;
+    }
+
+    public int getNumber() {
+        return number;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    public byte[] getData() {
+        return data;
+    }
+}
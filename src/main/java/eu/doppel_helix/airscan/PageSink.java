@@ -0,0 +1,41 @@
+/*
+ * Copyright 2026 Matthias Bläsing
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.doppel_helix.airscan;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * Receives the pages of a scan job in the order they are delivered by the
+ * scanner. {@link #close()} is invoked after the last page.
+ */
+public interface PageSink extends Closeable {
+
+    void write(Page page) throws IOException;
+
+    /**
+     * Invoked instead of {@link #close()} if the job failed. Sinks writing
+     * a single output discard it, so that no truncated file is left behind.
+     */
+    default void abort() {
+        try {
+            close();
+        } catch (IOException ex) {
+            // The job already failed, the original error is reported
+        }
+    }
+}
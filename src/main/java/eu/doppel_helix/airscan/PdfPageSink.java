@@ -0,0 +1,126 @@
+/*
+ * Copyright 2026 Matthias Bläsing
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.doppel_helix.airscan;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * Collects all pages into one PDF file. Pages are prepared (JPEG header
+ * parsing or decoding and compression) on the common fork-join pool and
+ * appended to the file in page order as soon as they are ready. The file is
+ * written through {@link AtomicFile} and only appears when it is complete.
+ *
+ * <p>
+ * At most {@code window} pages are in preparation, so memory usage does not
+ * depend on the number of pages.</p>
+ */
+public class PdfPageSink implements PageSink {
+
+    private final File outputFile;
+    private final int xResolution;
+    private final int yResolution;
+    private final int window;
+    private final Deque<ForkJoinTask<PdfWriter.Image>> pending = new ArrayDeque<>();
+    private final AtomicFile file;
+    private final PdfWriter writer;
+
+    /**
+     * @param outputFile
+     * @param xResolution scan resolution, used for the page size
+     * @param yResolution
+     * @param syncPolicy
+     * @throws IOException
+     */
+    public PdfPageSink(File outputFile, int xResolution, int yResolution, SyncPolicy syncPolicy) throws IOException {
+        this.outputFile = outputFile;
+        this.xResolution = xResolution > 0 ? xResolution : 300;
+        this.yResolution = yResolution > 0 ? yResolution : 300;
+        this.window = Math.max(2, ForkJoinPool.getCommonPoolParallelism());
+        this.file = new AtomicFile(outputFile.toPath(), syncPolicy);
+        this.writer = new PdfWriter(file.asOutputStream());
+    }
+
+    @Override
+    public void write(Page page) throws IOException {
+        byte[] data = page.getData();
+        pending.add(ForkJoinPool.commonPool().submit(() -> {
+            try {
+                return PdfWriter.prepare(data);
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+        }));
+        while (pending.size() > window) {
+            appendNext();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            while (!pending.isEmpty()) {
+                appendNext();
+            }
+            writer.close();
+            file.commit();
+        } finally {
+            abort();
+        }
+        System.out.printf("Wrote %d page(s) to: %s%n", writer.getPageCount(), outputFile);
+    }
+
+    /**
+     * Discard the file, nothing is written under the final name.
+     */
+    @Override
+    public void abort() {
+        for (ForkJoinTask<?> task : pending) {
+            task.cancel(true);
+        }
+        pending.clear();
+        try {
+            file.close();
+        } catch (IOException ex) {
+            // Only the temporary file is left behind
+        }
+    }
+
+    private void appendNext() throws IOException {
+        ForkJoinTask<PdfWriter.Image> task = pending.removeFirst();
+        PdfWriter.Image image;
+        try {
+            image = task.get();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while preparing PDF page");
+        } catch (ExecutionException ex) {
+            if (ex.getCause() instanceof UncheckedIOException) {
+                throw ((UncheckedIOException) ex.getCause()).getCause();
+            }
+            throw new IOException(ex.getCause());
+        }
+        writer.addPage(image, xResolution, yResolution);
+    }
+}
@@ -0,0 +1,265 @@
+/*
+ * Copyright 2026 Matthias Bläsing
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.doppel_helix.airscan;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.Raster;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.zip.DeflaterOutputStream;
+import javax.imageio.ImageIO;
+
+/**
+ * Minimal streaming PDF writer: every page is a single image filling the
+ * page. Pages are written as soon as they are added, only the object
+ * offsets are kept until the cross reference table is written on
+ * {@link #close()}.
+ *
+ * <p>
+ * JPEG data is embedded unchanged ({@code DCTDecode}), other formats are
+ * decoded and stored losslessly ({@code FlateDecode}).</p>
+ */
+public class PdfWriter implements Closeable {
+
+    private static final int CATALOG = 1;
+    private static final int PAGES = 2;
+
+    private final OutputStream out;
+    private final List<Long> offsets = new ArrayList<>();
+    private final List<Integer> pageObjects = new ArrayList<>();
+    private long position;
+
+    public PdfWriter(OutputStream out) throws IOException {
+        this.out = out;
+        // Catalog and page tree are written last, reserve their numbers
+        offsets.add(0L);
+        offsets.add(0L);
+        write("%PDF-1.4\n");
+        // Binary marker, so that transfer programs treat the file as binary
+        write(new byte[]{'%', (byte) 0xE2, (byte) 0xE3, (byte) 0xCF, (byte) 0xD3, '\n'});
+    }
+
+    /**
+     * Image prepared for embedding, created by {@link #prepare(byte[])}.
+     * Preparation does not touch the writer and can run concurrently.
+     */
+    public static class Image {
+        private final int width;
+        private final int height;
+        private final String colorSpace;
+        private final String filter;
+        private final byte[] data;
+
+        Image(int width, int height, String colorSpace, String filter, byte[] data) {
+            this.width = width;
+            this.height = height;
+            this.colorSpace = colorSpace;
+            this.filter = filter;
+            this.data = data;
+        }
+
+        public int getWidth() {
+            return width;
+        }
+
+        public int getHeight() {
+            return height;
+        }
+    }
+
+    /**
+     * Prepare image data for embedding.
+     *
+     * @param data JPEG data or any format readable by {@link ImageIO}
+     * @return
+     * @throws IOException if the data can not be decoded
+     */
+    public static Image prepare(byte[] data) throws IOException {
+        if (data.length > 2 && (data[0] & 0xff) == 0xFF && (data[1] & 0xff) == 0xD8) {
+            return prepareJpeg(data);
+        }
+        BufferedImage image = ImageIO.read(new ByteArrayInputStream(data));
+        if (image == null) {
+            throw new IOException("Page can not be decoded for PDF output");
+        }
+        boolean gray = image.getColorModel().getNumComponents() == 1;
+        int width = image.getWidth();
+        int height = image.getHeight();
+        ByteArrayOutputStream baos = new ByteArrayOutputStream(data.length);
+        try (DeflaterOutputStream dos = new DeflaterOutputStream(baos)) {
+            byte[] row = new byte[width * (gray ? 1 : 3)];
+            int[] pixels = new int[width];
+            Raster raster = image.getRaster();
+            for (int y = 0; y < height; y++) {
+                if (gray && raster.getSampleModel().getSampleSize(0) == 8) {
+                    raster.getSamples(0, y, width, 1, 0, pixels);
+                    for (int x = 0; x < width; x++) {
+                        row[x] = (byte) pixels[x];
+                    }
+                } else {
+                    image.getRGB(0, y, width, 1, pixels, 0, width);
+                    for (int x = 0; x < width; x++) {
+                        int rgb = pixels[x];
+                        if (gray) {
+                            row[x] = (byte) rgb;
+                        } else {
+                            row[x * 3] = (byte) (rgb >> 16);
+                            row[x * 3 + 1] = (byte) (rgb >> 8);
+                            row[x * 3 + 2] = (byte) rgb;
+                        }
+                    }
+                }
+                dos.write(row);
+            }
+        }
+        return new Image(width, height, gray ? "/DeviceGray" : "/DeviceRGB", "/FlateDecode", baos.toByteArray());
+    }
+
+    /**
+     * Read the dimensions from the SOF marker, the data is embedded as is.
+     */
+    private static Image prepareJpeg(byte[] data) throws IOException {
+        int offset = 2;
+        while (offset + 4 <= data.length) {
+            if ((data[offset] & 0xff) != 0xFF) {
+                throw new IOException("Corrupt JPEG: marker expected at " + offset);
+            }
+            int marker = data[offset + 1] & 0xff;
+            if (marker == 0xFF) {
+                // Fill byte
+                offset++;
+                continue;
+            }
+            int length = ((data[offset + 2] & 0xff) << 8) | (data[offset + 3] & 0xff);
+            boolean startOfFrame = marker >= 0xC0 && marker <= 0xCF
+                && marker != 0xC4 && marker != 0xC8 && marker != 0xCC;
+            if (startOfFrame) {
+                if (offset + 10 > data.length) {
+                    break;
+                }
+                int height = ((data[offset + 5] & 0xff) << 8) | (data[offset + 6] & 0xff);
+                int width = ((data[offset + 7] & 0xff) << 8) | (data[offset + 8] & 0xff);
+                int components = data[offset + 9] & 0xff;
+                String colorSpace = components == 1 ? "/DeviceGray" : components == 4 ? "/DeviceCMYK" : "/DeviceRGB";
+                return new Image(width, height, colorSpace, "/DCTDecode", data);
+            }
+            offset += 2 + length;
+        }
+        throw new IOException("Corrupt JPEG: no frame header found");
+    }
+
+    /**
+     * Append a page showing the image.
+     *
+     * @param image
+     * @param xResolution resolution used to calculate the page size
+     * @param yResolution
+     * @throws IOException
+     */
+    public void addPage(Image image, int xResolution, int yResolution) throws IOException {
+        double pageWidth = image.width * 72d / xResolution;
+        double pageHeight = image.height * 72d / yResolution;
+
+        int imageObject = beginObject();
+        write(String.format(Locale.ROOT,
+            "<< /Type /XObject /Subtype /Image /Width %d /Height %d /ColorSpace %s /BitsPerComponent 8 /Filter %s /Length %d >>\nstream\n",
+            image.width, image.height, image.colorSpace, image.filter, image.data.length));
+        write(image.data);
+        write("\nendstream\n");
+        endObject();
+
+        byte[] content = String.format(Locale.ROOT, "q %.3f 0 0 %.3f 0 0 cm /Im0 Do Q\n", pageWidth, pageHeight)
+            .getBytes(StandardCharsets.US_ASCII);
+        int contentObject = beginObject();
+        write("<< /Length " + content.length + " >>\nstream\n");
+        write(content);
+        write("endstream\n");
+        endObject();
+
+        int pageObject = beginObject();
+        write(String.format(Locale.ROOT,
+            "<< /Type /Page /Parent %d 0 R /MediaBox [0 0 %.3f %.3f] /Resources << /XObject << /Im0 %d 0 R >> >> /Contents %d 0 R >>\n",
+            PAGES, pageWidth, pageHeight, imageObject, contentObject));
+        endObject();
+        pageObjects.add(pageObject);
+    }
+
+    public int getPageCount() {
+        return pageObjects.size();
+    }
+
+    /**
+     * Write page tree, catalog and cross reference table. The underlying
+     * stream is closed.
+     *
+     * @throws IOException
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            offsets.set(PAGES - 1, position);
+            StringBuilder kids = new StringBuilder();
+            for (int page : pageObjects) {
+                kids.append(page).append(" 0 R ");
+            }
+            write(PAGES + " 0 obj\n<< /Type /Pages /Kids [" + kids + "] /Count " + pageObjects.size() + " >>\nendobj\n");
+            offsets.set(CATALOG - 1, position);
+            write(CATALOG + " 0 obj\n<< /Type /Catalog /Pages " + PAGES + " 0 R >>\nendobj\n");
+
+            long xref = position;
+            StringBuilder sb = new StringBuilder();
+            sb.append("xref\n0 ").append(offsets.size() + 1).append('\n');
+            sb.append("0000000000 65535 f \n");
+            for (long offset : offsets) {
+                sb.append(String.format(Locale.ROOT, "%010d 00000 n \n", offset));
+            }
+            sb.append("trailer\n<< /Size ").append(offsets.size() + 1)
+                .append(" /Root ").append(CATALOG).append(" 0 R >>\nstartxref\n")
+                .append(xref).append("\n%%EOF\n");
+            write(sb.toString());
+        } finally {
+            out.close();
+        }
+    }
+
+    private int beginObject() throws IOException {
+        offsets.add(position);
+        int number = offsets.size();
+        write(number + " 0 obj\n");
+        return number;
+    }
+
+    private void endObject() throws IOException {
+        write("endobj\n");
+    }
+
+    private void write(String text) throws IOException {
+        write(text.getBytes(StandardCharsets.US_ASCII));
+    }
+
+    private void write(byte[] data) throws IOException {
+        out.write(data);
+        position += data.length;
+    }
+}
@@ -0,0 +1,241 @@
+/*
+ * Copyright 2026 Matthias Bläsing
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.doppel_helix.airscan;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Function;
+
+/**
+ * Duration and transferred bytes of the phases of a scan, per scanner. The
+ * scanner is identified by the host and port of its URL, so that slow
+ * devices and network segments stand out.
+ *
+ * <p>
+ * The metrics can be printed as summary or written as JSON or in the
+ * Prometheus text format, for example for the textfile collector of the
+ * node exporter. Files are replaced atomically.</p>
+ */
+public class PhaseMetrics {
+
+    public enum Phase {
+        DISCOVERY("Discovery", "discovery"),
+        CAPABILITIES("Capabilities", "capabilities"),
+        JOB_CREATION("Job creation", "job_creation"),
+        FIRST_BYTE("First byte", "first_byte"),
+        TRANSFER("Transfer", "transfer");
+
+        private final String label;
+        private final String metricName;
+
+        private Phase(String label, String metricName) {
+            this.label = label;
+            this.metricName = metricName;
+        }
+
+        public String getLabel() {
+            return label;
+        }
+
+        public String getMetricName() {
+            return metricName;
+        }
+    }
+
+    public enum Format {
+        JSON, PROMETHEUS;
+
+        /**
+         * @param file
+         * @return {@link #JSON} for {@code .json} files, else
+         * {@link #PROMETHEUS}
+         */
+        public static Format forFile(Path file) {
+            return file.getFileName().toString().toLowerCase(Locale.ROOT).endsWith(".json") ? JSON : PROMETHEUS;
+        }
+    }
+
+    private final Map<Phase, ConcurrentMap<String, Stats>> phases = new EnumMap<>(Phase.class);
+
+    public PhaseMetrics() {
+        for (Phase phase : Phase.values()) {
+            phases.put(phase, new ConcurrentHashMap<>());
+        }
+    }
+
+    /**
+     * @param baseUri
+     * @return label identifying the scanner in the metrics
+     */
+    public static String scannerLabel(URI baseUri) {
+        return baseUri.getPort() < 0 ? baseUri.getHost() : baseUri.getHost() + ":" + baseUri.getPort();
+    }
+
+    /**
+     * @param phase
+     * @param scanner scanner label, empty if the phase is not bound to a
+     * scanner
+     * @param nanos duration
+     * @param bytes transferred bytes
+     */
+    public void record(Phase phase, String scanner, long nanos, long bytes) {
+        phases.get(phase)
+            .computeIfAbsent(scanner == null ? "" : scanner, s -> new Stats())
+            .add(nanos, bytes);
+    }
+
+    /**
+     * Print the duration of each phase, summed over all scanners.
+     *
+     * @param out
+     */
+    public void printSummary(PrintStream out) {
+        out.println("\nTiming");
+        for (Phase phase : Phase.values()) {
+            Stats total = new Stats();
+            for (Stats stats : phases.get(phase).values()) {
+                total.add(stats);
+            }
+            if (total.count == 0) {
+                continue;
+            }
+            String counted = total.count > 1 ? String.format(" (%d requests)", total.count) : "";
+            if (total.bytes > 0) {
+                out.printf("%20s: %6d ms, %d bytes, %.1f KiB/s%s%n", phase.getLabel(),
+                    total.nanos / 1_000_000, total.bytes, total.getBytesPerSecond() / 1024, counted);
+            } else {
+                out.printf("%20s: %6d ms%s%n", phase.getLabel(), total.nanos / 1_000_000, counted);
+            }
+        }
+    }
+
+    /**
+     * @return the metrics as JSON document
+     */
+    public String toJson() {
+        List<Object> entries = new ArrayList<>();
+        for (Phase phase : Phase.values()) {
+            for (Map.Entry<String, Stats> entry : phases.get(phase).entrySet()) {
+                Stats stats = entry.getValue().snapshot();
+                Map<String, Object> row = new LinkedHashMap<>();
+                row.put("phase", phase.getMetricName());
+                row.put("scanner", entry.getKey());
+                row.put("count", stats.count);
+                row.put("durationMillis", stats.nanos / 1_000_000);
+                row.put("maxMillis", stats.maxNanos / 1_000_000);
+                row.put("bytes", stats.bytes);
+                row.put("bytesPerSecond", Math.round(stats.getBytesPerSecond()));
+                entries.add(row);
+            }
+        }
+        Map<String, Object> document = new LinkedHashMap<>();
+        document.put("timestamp", System.currentTimeMillis());
+        document.put("phases", entries);
+        return Json.write(document);
+    }
+
+    /**
+     * @return the metrics in the Prometheus text exposition format
+     */
+    public String toPrometheus() {
+        StringBuilder sb = new StringBuilder();
+        appendFamily(sb, "airscan_phase_total", "counter", "Number of times the phase was run", stats -> Long.toString(stats.count));
+        appendFamily(sb, "airscan_phase_seconds_total", "counter", "Time spent in the phase", stats -> seconds(stats.nanos));
+        appendFamily(sb, "airscan_phase_seconds_max", "gauge", "Longest run of the phase", stats -> seconds(stats.maxNanos));
+        appendFamily(sb, "airscan_phase_bytes_total", "counter", "Bytes transferred in the phase", stats -> Long.toString(stats.bytes));
+        return sb.toString();
+    }
+
+    private void appendFamily(StringBuilder sb, String name, String type, String help, Function<Stats, String> value) {
+        sb.append("# HELP ").append(name).append(' ').append(help).append('\n');
+        sb.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+        for (Phase phase : Phase.values()) {
+            for (Map.Entry<String, Stats> entry : phases.get(phase).entrySet()) {
+                sb.append(name)
+                    .append("{phase=\"").append(phase.getMetricName())
+                    .append("\",scanner=\"").append(escapeLabel(entry.getKey()))
+                    .append("\"} ").append(value.apply(entry.getValue().snapshot())).append('\n');
+            }
+        }
+    }
+
+    /**
+     * Write the metrics to a file, the file is replaced atomically.
+     *
+     * @param file
+     * @param format
+     * @throws IOException
+     */
+    public void write(Path file, Format format) throws IOException {
+        String content = format == Format.JSON ? toJson() + "\n" : toPrometheus();
+        AtomicFile.write(file, content.getBytes(StandardCharsets.UTF_8), SyncPolicy.NONE);
+    }
+
+    private static String seconds(long nanos) {
+        return String.format(Locale.ROOT, "%.6f", nanos / 1e9);
+    }
+
+    private static String escapeLabel(String value) {
+        return value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+
+    private static class Stats {
+        private long count;
+        private long nanos;
+        private long maxNanos;
+        private long bytes;
+
+        synchronized void add(long duration, long transferred) {
+            count++;
+            nanos += duration;
+            maxNanos = Math.max(maxNanos, duration);
+            bytes += transferred;
+        }
+
+        synchronized void add(Stats other) {
+            Stats copy = other.snapshot();
+            count += copy.count;
+            nanos += copy.nanos;
+            maxNanos = Math.max(maxNanos, copy.maxNanos);
+            bytes += copy.bytes;
+        }
+
+        synchronized Stats snapshot() {
+            Stats copy = new Stats();
+            copy.count = count;
+            copy.nanos = nanos;
+            copy.maxNanos = maxNanos;
+            copy.bytes = bytes;
+            return copy;
+        }
+
+        double getBytesPerSecond() {
+            return nanos == 0 ? 0 : bytes * 1e9 / nanos;
+        }
+    }
+}
@@ -0,0 +1,150 @@
+/*
+ * Copyright 2026 Matthias Bläsing
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.doppel_helix.airscan;
+
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.List;
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+
+/**
+ * Cuts the regions out of each page, for scanners that accept fewer regions
+ * than requested. The scanner delivers the bounding box of all regions,
+ * every region becomes a page of its own.
+ *
+ * <p>
+ * Each region is decoded separately with a source region set on the
+ * {@link ImageReader}, so the full page is never held as a decoded
+ * image.</p>
+ *
+ * <p>
+ * Slicing re-encodes the image in the format of the page. PNG is lossless,
+ * JPEG is written with quality {@value #JPEG_QUALITY}, which still adds a
+ * second lossy encoding on top of the scanner's compression.</p>
+ */
+public class RegionSliceSink implements PageSink {
+
+    private static final float JPEG_QUALITY = 0.95f;
+
+    private final PageSink delegate;
+    private final ScanRegion scanned;
+    private final List<ScanRegion> regions;
+    private final int xResolution;
+    private final int yResolution;
+    private int pageNumber;
+
+    /**
+     * @param delegate
+     * @param settings settings with the bounding box as only region and the
+     * regions to cut out as slice regions
+     */
+    public RegionSliceSink(PageSink delegate, ScanSettings settings) {
+        this.delegate = delegate;
+        this.scanned = settings.getRegions().get(0);
+        this.regions = settings.getSliceRegions();
+        this.xResolution = settings.getXResolution();
+        this.yResolution = settings.getYResolution();
+    }
+
+    @Override
+    public void write(Page page) throws IOException {
+        try (ImageInputStream iis = ImageIO.createImageInputStream(new ByteArrayInputStream(page.getData()))) {
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(iis);
+            if (!readers.hasNext()) {
+                throw new IOException("Page in format " + page.getContentType() + " can not be split into regions");
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(iis, true, true);
+                String formatName = "png".equalsIgnoreCase(reader.getFormatName()) ? "png" : "jpeg";
+                int width = reader.getWidth(0);
+                int height = reader.getHeight(0);
+                for (ScanRegion region : regions) {
+                    Rectangle source = toPixels(region).intersection(new Rectangle(0, 0, width, height));
+                    if (source.isEmpty()) {
+                        throw new IOException("Region " + region + " is outside of the delivered page");
+                    }
+                    ImageReadParam param = reader.getDefaultReadParam();
+                    param.setSourceRegion(source);
+                    BufferedImage image = reader.read(0, param);
+                    pageNumber++;
+                    delegate.write(new Page(pageNumber, "image/" + formatName, encode(image, formatName)));
+                }
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    /**
+     * Encode a region. JPEG is written with a high quality instead of the
+     * ImageIO default of 0.75, the scanner already compressed the page.
+     */
+    private static byte[] encode(BufferedImage image, String formatName) throws IOException {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        if (!"jpeg".equals(formatName)) {
+            if (!ImageIO.write(image, formatName, baos)) {
+                throw new IOException("No encoder for " + formatName);
+            }
+            return baos.toByteArray();
+        }
+        Iterator<ImageWriter> writers = ImageIO.getImageWritersByFormatName(formatName);
+        if (!writers.hasNext()) {
+            throw new IOException("No encoder for " + formatName);
+        }
+        ImageWriter writer = writers.next();
+        try (ImageOutputStream ios = ImageIO.createImageOutputStream(baos)) {
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            param.setCompressionQuality(JPEG_QUALITY);
+            writer.setOutput(ios);
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+        return baos.toByteArray();
+    }
+
+    private Rectangle toPixels(ScanRegion region) {
+        int x = (region.getXOffset() - scanned.getXOffset()) * xResolution / 300;
+        int y = (region.getYOffset() - scanned.getYOffset()) * yResolution / 300;
+        int width = region.getWidth() * xResolution / 300;
+        int height = region.getHeight() * yResolution / 300;
+        return new Rectangle(x, y, Math.max(1, width), Math.max(1, height));
+    }
+
+    @Override
+    public void close() throws IOException {
+        delegate.close();
+    }
+
+    @Override
+    public void abort() {
+        delegate.abort();
+    }
+}
@@ -0,0 +1,139 @@
+/*
+ * Copyright 2026 Matthias Bläsing
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.doppel_helix.airscan;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Remembers the connect time (round trip time) measured for scanner
+ * addresses, so that later runs try the fastest address first. Failed
+ * addresses are remembered as well and are tried last.
+ */
+public class RttCache {
+
+    private static final Logger LOG = Logger.getLogger(RttCache.class.getName());
+
+    private static final String FILE_NAME = "rtt.properties";
+    private static final long MAX_AGE_MILLIS = 7L * 24 * 60 * 60 * 1000;
+
+    /**
+     * Value reported by {@link #get(java.lang.String, int)} for addresses
+     * that could not be connected.
+     */
+    public static final long FAILED = Long.MAX_VALUE;
+
+    private final Path file;
+    private final Map<String, long[]> entries = new HashMap<>();
+    private boolean modified;
+
+    /**
+     * @param directory cache directory or {@code null} to only keep the
+     * measurements in memory
+     */
+    public RttCache(Path directory) {
+        this.file = directory == null ? null : directory.resolve(FILE_NAME);
+        if (file != null) {
+            load();
+        }
+    }
+
+    /**
+     * @param host
+     * @param port
+     * @return the last measured connect time in milliseconds, {@link #FAILED}
+     * if the last attempt failed or {@code null} if the address is unknown
+     */
+    public synchronized Long get(String host, int port) {
+        long[] entry = entries.get(key(host, port));
+        return entry == null ? null : entry[0];
+    }
+
+    public synchronized void record(String host, int port, long rttMillis) {
+        entries.put(key(host, port), new long[]{rttMillis, System.currentTimeMillis()});
+        modified = true;
+    }
+
+    public synchronized void recordFailure(String host, int port) {
+        record(host, port, FAILED);
+    }
+
+    /**
+     * Write the cache, if entries were recorded since the last write.
+     *
+     * @throws IOException
+     */
+    public synchronized void save() throws IOException {
+        if (file == null || (!modified)) {
+            return;
+        }
+        Properties properties = new Properties();
+        for (Map.Entry<String, long[]> entry : entries.entrySet()) {
+            properties.setProperty(entry.getKey(), entry.getValue()[0] + "," + entry.getValue()[1]);
+        }
+
+        Files.createDirectories(file.getParent());
+        Path tempFile = Files.createTempFile(file.getParent(), FILE_NAME, ".tmp");
+        try {
+            try (OutputStream os = Files.newOutputStream(tempFile)) {
+                properties.store(os, "airscan-cli address round trip times");
+            }
+            Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(tempFile);
+        }
+        modified = false;
+    }
+
+    private void load() {
+        Properties properties = new Properties();
+        try (InputStream is = Files.newInputStream(file)) {
+            properties.load(is);
+        } catch (NoSuchFileException ex) {
+            return;
+        } catch (IOException ex) {
+            LOG.log(Level.FINE, "Failed to read RTT cache", ex);
+            return;
+        }
+        long oldest = System.currentTimeMillis() - MAX_AGE_MILLIS;
+        for (String key : properties.stringPropertyNames()) {
+            String[] value = properties.getProperty(key).split(",");
+            try {
+                long timestamp = Long.parseLong(value[1]);
+                if (timestamp >= oldest) {
+                    entries.put(key, new long[]{Long.parseLong(value[0]), timestamp});
+                }
+            } catch (NumberFormatException | ArrayIndexOutOfBoundsException ex) {
+                LOG.log(Level.FINE, "Ignoring corrupt RTT cache entry " + key, ex);
+            }
+        }
+    }
+
+    private static String key(String host, int port) {
+        return host + "/" + port;
+    }
+}
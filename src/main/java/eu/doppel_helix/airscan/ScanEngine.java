@@ -0,0 +1,615 @@
+/*
+ * Copyright 2026 Matthias Bläsing
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.doppel_helix.airscan;
+
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.URI;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+import javax.imageio.ImageIO;
+
+/**
+ * Scan logic shared by the command line and the {@code serve} mode. The
+ * engine keeps one {@link EsclClient} per scanner URL and the capabilities
+ * of the scanners in memory, so that repeated scans only pay for the scan
+ * itself.
+ *
+ * <p>
+ * Jobs running while the JVM is shut down are removed from the scanner.</p>
+ */
+public class ScanEngine implements Closeable {
+
+    /**
+     * Capabilities held in memory are used without asking the scanner for
+     * this time.
+     */
+    private static final long MEMORY_TTL_MILLIS = 60_000;
+
+    /**
+     * Lowest resolution used for previews, below this small objects are
+     * lost in the sensor noise.
+     */
+    private static final int MIN_PREVIEW_RESOLUTION = 50;
+
+    /**
+     * Margin added around detected content (1/10 inch).
+     */
+    private static final int CONTENT_MARGIN = 30;
+
+    private final boolean debug;
+    private final boolean useCache;
+    private final long capabilitiesTtl;
+    private final Duration connectTimeout;
+    private final Duration requestTimeout;
+    private final Duration totalTimeout;
+    private final TransferWatchdog watchdog;
+    private final PhaseMetrics metrics = new PhaseMetrics();
+    private final CapabilitiesCache capabilitiesCache;
+    private final ConcurrentMap<String, EsclClient> clients = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, CapabilitiesCache.Entry> capabilities = new ConcurrentHashMap<>();
+    private final Set<ScanJob> activeJobs = ConcurrentHashMap.newKeySet();
+    // Journaled jobs are kept on the scanner when the client fails, so that
+    // --resume can continue them
+    private final Set<ScanJob> resumableJobs = ConcurrentHashMap.newKeySet();
+    private final Thread cleanup;
+    private AddressSelector addressSelector;
+    private RttCache rttCache;
+
+    /**
+     * @param debug
+     * @param useCache use and update the on-disk capabilities cache
+     * @param capabilitiesTtl time in seconds cached capabilities are used,
+     * if the scanner does not support conditional requests
+     * @param connectTimeout
+     * @param requestTimeout
+     */
+    public ScanEngine(boolean debug, boolean useCache, long capabilitiesTtl, Duration connectTimeout, Duration requestTimeout) {
+        this(debug, useCache, capabilitiesTtl, connectTimeout, requestTimeout, Duration.ZERO, 0, Duration.ZERO);
+    }
+
+    /**
+     * @param debug
+     * @param useCache use and update the on-disk capabilities cache
+     * @param capabilitiesTtl time in seconds cached capabilities are used,
+     * if the scanner does not support conditional requests
+     * @param connectTimeout
+     * @param requestTimeout time to wait for a response and maximum time
+     * without data while a document is transferred
+     * @param totalTimeout maximum duration of a scan, {@link Duration#ZERO}
+     * for no limit
+     * @param minBytesPerSecond throughput floor for document transfers,
+     * {@code 0} to disable
+     * @param stallTime time the throughput may stay below the floor
+     */
+    public ScanEngine(boolean debug, boolean useCache, long capabilitiesTtl, Duration connectTimeout, Duration requestTimeout,
+        Duration totalTimeout, long minBytesPerSecond, Duration stallTime) {
+        this.debug = debug;
+        this.useCache = useCache;
+        this.capabilitiesTtl = capabilitiesTtl;
+        this.connectTimeout = connectTimeout;
+        this.requestTimeout = requestTimeout;
+        this.totalTimeout = totalTimeout;
+        this.watchdog = new TransferWatchdog(requestTimeout, minBytesPerSecond, stallTime);
+        this.capabilitiesCache = new CapabilitiesCache(CacheDirectory.get());
+        // Remove running jobs from the scanner if the process is terminated,
+        // else the scanner is blocked until the job times out
+        this.cleanup = new Thread(this::cancelActiveJobs, "airscan-job-cleanup");
+        Runtime.getRuntime().addShutdownHook(cleanup);
+    }
+
+    public boolean isDebug() {
+        return debug;
+    }
+
+    /**
+     * @return duration of the phases of all scans run by this engine
+     */
+    public PhaseMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * @param url eSCL base URL
+     * @return the shared client for the URL
+     */
+    public EsclClient getClient(String url) {
+        return clients.computeIfAbsent(url, u -> new EsclClient(u, connectTimeout, requestTimeout, debug));
+    }
+
+    /**
+     * Select the fastest reachable address of a service. The measured
+     * connect times are remembered in the cache directory.
+     *
+     * @param service
+     * @return the URL of the selected address
+     * @throws InterruptedException
+     * @see AddressSelector
+     */
+    public String selectUrl(ScannerService service) throws InterruptedException {
+        AddressSelector selector;
+        synchronized (this) {
+            if (addressSelector == null) {
+                rttCache = new RttCache(useCache ? CacheDirectory.get() : null);
+                addressSelector = new AddressSelector(rttCache, connectTimeout, debug);
+            }
+            selector = addressSelector;
+        }
+        String url = selector.selectUrl(service);
+        try {
+            rttCache.save();
+        } catch (IOException ex) {
+            if (debug) {
+                System.err.println("Failed to write RTT cache: " + ex.getMessage());
+            }
+        }
+        return url;
+    }
+
+    /**
+     * Get the capabilities of a scanner. Capabilities are taken from memory,
+     * from the on-disk cache (revalidated if the scanner supports
+     * conditional requests) or fetched from the scanner.
+     *
+     * @param client
+     * @param service discovered service or {@code null} if the scanner was
+     * addressed by URL
+     * @return
+     * @throws IOException
+     */
+    public Capabilities getCapabilities(EsclClient client, ScannerService service) throws IOException {
+        ScanEvents.Capabilities event = new ScanEvents.Capabilities();
+        event.begin();
+        long start = System.nanoTime();
+        Capabilities result = getCapabilities(client, service, event);
+        event.scanner = PhaseMetrics.scannerLabel(client.getBaseUri());
+        event.commit();
+        metrics.record(PhaseMetrics.Phase.CAPABILITIES, event.scanner, System.nanoTime() - start, 0);
+        return result;
+    }
+
+    private Capabilities getCapabilities(EsclClient client, ScannerService service, ScanEvents.Capabilities event) throws IOException {
+        String cacheKey = CapabilitiesCache.keyFor(service, client.getBaseUri().toString());
+        CapabilitiesCache.Entry cached = capabilities.get(cacheKey);
+        if (cached != null && System.currentTimeMillis() - cached.getFetched() < MEMORY_TTL_MILLIS) {
+            event.source = "memory";
+            return cached.getCapabilities();
+        }
+        if (cached == null && useCache) {
+            cached = capabilitiesCache.load(cacheKey);
+        }
+
+        if (cached != null
+            && (!cached.hasValidators())
+            && System.currentTimeMillis() - cached.getFetched() < capabilitiesTtl * 1000L) {
+            if (debug) {
+                System.err.println("Using cached capabilities for " + cacheKey);
+            }
+            capabilities.put(cacheKey, cached);
+            event.source = "cache";
+            return cached.getCapabilities();
+        }
+
+        CapabilitiesCache.Entry fetched = EsclClient.await(client.getCapabilitiesAsync(
+            cached == null ? null : cached.getEtag(),
+            cached == null ? null : cached.getLastModified()));
+        if (fetched == null && cached == null) {
+            throw new IOException("Scanner answered unconditional capabilities request with 304");
+        } else if (fetched == null) {
+            if (debug) {
+                System.err.println("Capabilities not modified, using cached capabilities for " + cacheKey);
+            }
+            capabilities.put(cacheKey, new CapabilitiesCache.Entry(
+                cached.getCapabilities(), cached.getEtag(), cached.getLastModified(), System.currentTimeMillis()));
+            event.source = "revalidated";
+            return cached.getCapabilities();
+        }
+
+        capabilities.put(cacheKey, fetched);
+        event.source = "scanner";
+        if (useCache) {
+            try {
+                capabilitiesCache.store(cacheKey, fetched);
+            } catch (IOException ex) {
+                if (debug) {
+                    System.err.println("Failed to write capabilities cache: " + ex.getMessage());
+                }
+            }
+        }
+        return fetched.getCapabilities();
+    }
+
+    /**
+     * Create the scan settings for a request. Values not set in the request
+     * are filled with the defaults of the input source, document format and
+     * compression are negotiated by {@link FormatNegotiation}.
+     *
+     * @param c
+     * @param request
+     * @return
+     * @throws IllegalArgumentException if the scanner does not support the
+     * requested input source or document format
+     */
+    public ScanSettings createSettings(Capabilities c, ScanRequest request) {
+        InputSourceCapabilities source;
+        if (request.isDuplex()) {
+            source = c.getAdfDuplex();
+            if (source == null) {
+                throw new IllegalArgumentException("Scanner does not support duplex scanning");
+            }
+        } else if (request.isAdf()) {
+            source = c.getAdfSimplex();
+            if (source == null) {
+                throw new IllegalArgumentException("Scanner has no automatic document feeder");
+            }
+        } else {
+            source = c.getDefaultInputSource();
+        }
+
+        String colorMode = request.getColorMode();
+        if (colorMode == null) {
+            if (source.getDefaultColorMode() != null && (!source.getDefaultColorMode().isBlank())) {
+                colorMode = source.getDefaultColorMode();
+            } else {
+                colorMode = source.getColorModes().contains("RGB24") ? "RGB24" : source.getColorModes().get(0);
+            }
+        }
+
+        Integer resolution = request.getResolution();
+        if (resolution == null) {
+            if (source.getDefaultResolution() != null) {
+                resolution = source.getDefaultResolution();
+            } else {
+                resolution = source.getMaxResolution();
+            }
+        }
+
+        ScanSettings settings = new ScanSettings();
+        if (request.getRegions().isEmpty()) {
+            settings.getRegions().add(new ScanRegion(0, 0, source.getMaxWidth(), source.getMaxHeight()));
+        } else if (request.getRegions().size() <= source.getMaxScanRegions()) {
+            settings.getRegions().addAll(request.getRegions());
+        } else {
+            // The scanner can not handle all regions: scan their bounding
+            // box in one pass and cut the regions out on the client
+            settings.getRegions().add(boundingBox(request.getRegions()));
+            settings.getSliceRegions().addAll(request.getRegions());
+        }
+        settings.setInputSource(request.isMultiPage() ? InputSource.FEEDER : InputSource.PLATEN);
+        settings.setDuplex(request.isDuplex());
+        settings.setColorMode(colorMode);
+        settings.setXResolution(resolution);
+        settings.setYResolution(resolution);
+        FormatNegotiation.apply(c, source, request, settings);
+        if (!settings.getSliceRegions().isEmpty()) {
+            FormatNegotiation.requireDecodable(source, request, settings);
+        }
+        return settings;
+    }
+
+    private static ScanRegion boundingBox(List<ScanRegion> regions) {
+        int left = Integer.MAX_VALUE;
+        int top = Integer.MAX_VALUE;
+        int right = 0;
+        int bottom = 0;
+        for (ScanRegion region : regions) {
+            left = Math.min(left, region.getXOffset());
+            top = Math.min(top, region.getYOffset());
+            right = Math.max(right, region.getXOffset() + region.getWidth());
+            bottom = Math.max(bottom, region.getYOffset() + region.getHeight());
+        }
+        return new ScanRegion(left, top, right - left, bottom - top);
+    }
+
+    /**
+     * Create the settings for a fast preview of the whole platen: lowest
+     * usable resolution, grayscale and a format that can be decoded by
+     * {@link ImageIO}.
+     *
+     * @param source
+     * @return
+     */
+    public ScanSettings createPreviewSettings(InputSourceCapabilities source) {
+        int resolution = Integer.MAX_VALUE;
+        for (int candidate : source.getResolutions()) {
+            if (candidate >= MIN_PREVIEW_RESOLUTION) {
+                resolution = Math.min(resolution, candidate);
+            }
+        }
+        if (resolution == Integer.MAX_VALUE) {
+            resolution = source.getResolutions().isEmpty() ? source.getMaxResolution() : source.getResolutions().get(0);
+        }
+        ScanSettings settings = new ScanSettings();
+        settings.getRegions().add(new ScanRegion(0, 0, source.getMaxWidth(), source.getMaxHeight()));
+        settings.setInputSource(InputSource.PLATEN);
+        settings.setColorMode(source.getColorModes().contains("Grayscale8") || source.getColorModes().isEmpty()
+            ? "Grayscale8"
+            : source.getColorModes().get(0));
+        settings.setXResolution(resolution);
+        settings.setYResolution(resolution);
+        for (String format : new String[]{FormatNegotiation.JPEG, FormatNegotiation.PNG}) {
+            if (source.getDocumentFormats().contains(format)) {
+                settings.setDocumentFormat(format);
+                break;
+            }
+        }
+        return settings;
+    }
+
+    /**
+     * Scan and decode a preview.
+     *
+     * @param client
+     * @param previewSettings
+     * @return
+     * @throws IOException if the scan fails or the preview can not be decoded
+     * @see #createPreviewSettings(eu.doppel_helix.airscan.InputSourceCapabilities)
+     */
+    public BufferedImage preview(EsclClient client, ScanSettings previewSettings) throws IOException {
+        List<Page> pages = new ArrayList<>(1);
+        scan(client, previewSettings, DuplexOrder.INTERLEAVED, new PageSink() {
+            @Override
+            public void write(Page page) {
+                pages.add(page);
+            }
+
+            @Override
+            public void close() {
+            }
+        });
+        BufferedImage image = ImageIO.read(new ByteArrayInputStream(pages.get(0).getData()));
+        if (image == null) {
+            throw new IOException("Preview in format " + pages.get(0).getContentType() + " can not be decoded");
+        }
+        return image;
+    }
+
+    /**
+     * Scan a preview and find the region of the platen covered by content.
+     *
+     * @param client
+     * @param source capabilities of the platen
+     * @return the content region including a small margin or {@code null}
+     * if the platen is empty
+     * @throws IOException
+     */
+    public ScanRegion detectContentRegion(EsclClient client, InputSourceCapabilities source) throws IOException {
+        ScanSettings previewSettings = createPreviewSettings(source);
+        BufferedImage image = preview(client, previewSettings);
+        Rectangle box = new ContentDetector(image).getBoundingBox();
+        if (debug) {
+            System.err.printf("Preview %dx%d at %d dpi, content %s%n", image.getWidth(), image.getHeight(), previewSettings.getXResolution(), box);
+        }
+        return box == null ? null : ContentDetector.toScanRegion(box, previewSettings.getXResolution(), CONTENT_MARGIN, source);
+    }
+
+    /**
+     * Scan a preview and find the separate objects (photos, cards) lying on
+     * the platen.
+     *
+     * @param client
+     * @param source capabilities of the platen
+     * @return regions of the objects including a small margin, ordered top
+     * to bottom, left to right; empty if the platen is empty
+     * @throws IOException
+     */
+    public List<ScanRegion> detectObjectRegions(EsclClient client, InputSourceCapabilities source) throws IOException {
+        ScanSettings previewSettings = createPreviewSettings(source);
+        BufferedImage image = preview(client, previewSettings);
+        List<Rectangle> objects = new ContentDetector(image).getObjects();
+        if (debug) {
+            System.err.printf("Preview %dx%d at %d dpi, objects %s%n", image.getWidth(), image.getHeight(), previewSettings.getXResolution(), objects);
+        }
+        List<ScanRegion> regions = new ArrayList<>(objects.size());
+        for (Rectangle object : objects) {
+            regions.add(ContentDetector.toScanRegion(object, previewSettings.getXResolution(), CONTENT_MARGIN, source));
+        }
+        return regions;
+    }
+
+    /**
+     * Run a scan job and hand the pages to the sink. The sink is closed
+     * when the job is finished and aborted if it failed. If the calling
+     * thread is interrupted or the transfer fails, the job is removed from
+     * the scanner.
+     *
+     * @param client
+     * @param settings
+     * @param duplexOrder order of the pages delivered in duplex mode
+     * @param target
+     * @return statistics of the job
+     * @throws IOException
+     */
+    public ScanResult scan(EsclClient client, ScanSettings settings, DuplexOrder duplexOrder, PageSink target) throws IOException {
+        return scan(client, settings, duplexOrder, target, null);
+    }
+
+    /**
+     * Run a scan job, that is checkpointed in a journal. If the journal
+     * holds pages of an interrupted run, the job of that run is continued
+     * if the scanner still has it. Else a new job is created and the pages
+     * already captured are skipped. The target has to record the pages in
+     * the journal ({@link JobJournal#record(FilePageSink)}).
+     *
+     * <p>
+     * A journaled job is not removed from the scanner if the transfer
+     * fails or the process is terminated, only if the total time limit
+     * expires. Jobs aborted by the scanner are removed in any case.</p>
+     *
+     * @param client
+     * @param settings
+     * @param duplexOrder order of the pages delivered in duplex mode
+     * @param target
+     * @param journal checkpoint of the job, may be {@code null}
+     * @return statistics of the job, the page count includes the pages of
+     * the interrupted run
+     * @throws IOException
+     */
+    public ScanResult scan(EsclClient client, ScanSettings settings, DuplexOrder duplexOrder, PageSink target, JobJournal journal) throws IOException {
+        boolean multiPage = settings.getInputSource() == InputSource.FEEDER;
+
+        ScanJob job = new ScanJob(client, settings, requestTimeout, watchdog, metrics, debug);
+        (journal == null ? activeJobs : resumableJobs).add(job);
+        boolean finished = false;
+        // The total time limit aborts a running transfer and interrupts
+        // waits for the scanner
+        Thread scanThread = Thread.currentThread();
+        AtomicBoolean expired = new AtomicBoolean();
+        String expiredMessage = "Scan did not finish within " + totalTimeout.getSeconds() + " s";
+        ScheduledFuture<?> limit = totalTimeout.isZero() ? null : watchdog.schedule(totalTimeout, () -> {
+            expired.set(true);
+            watchdog.abort(scanThread, expiredMessage);
+            scanThread.interrupt();
+        });
+        try {
+            int captured = journal == null ? 0 : journal.getPages();
+            URI previousJob = journal == null ? null : journal.getJobUri();
+            int skip = 0;
+            JobInfo previousInfo = previousJob == null ? null : job.attach(previousJob);
+            if (previousInfo != null) {
+                System.out.printf("Continuing scan job %s after page %d%n", previousJob, captured);
+                // NextDocument can not be repeated, a page in transfer when
+                // the run was interrupted is lost
+                int transferred = previousInfo.getImagesCompleted() - previousInfo.getImagesToTransfer();
+                if (transferred > captured) {
+                    System.err.printf("%d page(s) were sent by the scanner but not saved by the interrupted run, scan them again%n",
+                        transferred - captured);
+                }
+            } else {
+                job.start();
+                if (captured > 0) {
+                    System.out.printf("Interrupted scan job is gone, skipping the %d page(s) already captured%n", captured);
+                    skip = captured;
+                }
+            }
+            if (journal != null) {
+                journal.start(client.getBaseUri().toString(), job.getJobUri(), settings.toXml());
+            }
+            // Pages are handed to the writer thread, so that the next
+            // page is already requested while the previous is written
+            int pageCount = captured;
+            long bytes = 0;
+            long largestPage = 0;
+            long transferNanos = 0;
+            if (!settings.getSliceRegions().isEmpty()) {
+                target = new RegionSliceSink(target, settings);
+            }
+            if (settings.isDuplex() && duplexOrder == DuplexOrder.FRONTS_FIRST) {
+                target = new DuplexReorderSink(target);
+            }
+            PageSink sink = new AsyncPageSink(target);
+            boolean complete = false;
+            try {
+                while (true) {
+                    long start = System.nanoTime();
+                    Page page = job.nextPage(pageCount + 1);
+                    transferNanos += System.nanoTime() - start;
+                    if (page == null) {
+                        break;
+                    }
+                    if (skip > 0) {
+                        // Rescanned page, already captured by the
+                        // interrupted run
+                        skip--;
+                        continue;
+                    }
+                    pageCount++;
+                    bytes += page.getData().length;
+                    largestPage = Math.max(largestPage, page.getData().length);
+                    sink.write(page);
+                    if ((!multiPage) && pageCount >= settings.getDocumentsPerSide()) {
+                        break;
+                    }
+                }
+                if (pageCount == 0) {
+                    throw new IOException("Scanner did not deliver any page");
+                }
+                if (skip > 0) {
+                    System.err.printf("Scanner delivered %d page(s) less than captured by the interrupted run%n", skip);
+                }
+                complete = true;
+            } finally {
+                if (complete) {
+                    sink.close();
+                } else {
+                    sink.abort();
+                }
+            }
+            finished = true;
+            return new ScanResult(pageCount, bytes, transferNanos, largestPage);
+        } catch (IOException ex) {
+            if (expired.get()) {
+                throw new TransferTimeoutException(expiredMessage);
+            }
+            throw ex;
+        } finally {
+            if (limit != null) {
+                limit.cancel(false);
+            }
+            activeJobs.remove(job);
+            boolean resumable = resumableJobs.remove(job);
+            if (!finished) {
+                if (resumable && !expired.get()) {
+                    keepForResume(job);
+                } else {
+                    job.cancelQuietly();
+                }
+            }
+            if (expired.get()) {
+                // Interrupt was only used to enforce the time limit
+                Thread.interrupted();
+            }
+        }
+    }
+
+    private void cancelActiveJobs() {
+        for (ScanJob job : activeJobs) {
+            job.cancelQuietly();
+        }
+        for (ScanJob job : resumableJobs) {
+            if (resumableJobs.remove(job)) {
+                keepForResume(job);
+            }
+        }
+    }
+
+    private static void keepForResume(ScanJob job) {
+        if (job.getJobUri() != null && !job.getState().isTerminal()) {
+            System.err.printf("Scan job %s is kept on the scanner, --resume continues it%n", job.getJobUri());
+        }
+    }
+
+    @Override
+    public void close() {
+        cancelActiveJobs();
+        watchdog.close();
+        try {
+            Runtime.getRuntime().removeShutdownHook(cleanup);
+        } catch (IllegalStateException ex) {
+            // JVM is already shutting down, the hook takes care
+        }
+    }
+}
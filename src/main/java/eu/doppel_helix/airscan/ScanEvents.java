@@ -0,0 +1,100 @@
+/*
+ * Copyright 2026 Matthias Bläsing
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.doppel_helix.airscan;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * JDK Flight Recorder events for the phases of a scan. The events are only
+ * recorded while a recording is running, for example when started with
+ * {@code -XX:StartFlightRecording=filename=airscan.jfr}.
+ *
+ * @see PhaseMetrics
+ */
+public final class ScanEvents {
+
+    private ScanEvents() {
+    }
+
+    @Name("eu.doppel_helix.airscan.Discovery")
+    @Label("Scanner Discovery")
+    @Category("airscan")
+    @StackTrace(false)
+    public static class Discovery extends Event {
+        @Label("Cached")
+        @Description("Scanner was taken from the discovery cache")
+        public boolean cached;
+
+        @Label("Services")
+        public int services;
+
+        @Label("Scanner")
+        public String scanner;
+    }
+
+    @Name("eu.doppel_helix.airscan.Capabilities")
+    @Label("Capabilities")
+    @Category("airscan")
+    @StackTrace(false)
+    public static class Capabilities extends Event {
+        @Label("Scanner")
+        public String scanner;
+
+        @Label("Source")
+        @Description("memory, cache, revalidated or scanner")
+        public String source;
+    }
+
+    @Name("eu.doppel_helix.airscan.JobCreation")
+    @Label("Scan Job Creation")
+    @Category("airscan")
+    @StackTrace(false)
+    public static class JobCreation extends Event {
+        @Label("Scanner")
+        public String scanner;
+
+        @Label("HTTP Status")
+        public int status;
+    }
+
+    @Name("eu.doppel_helix.airscan.DocumentTransfer")
+    @Label("Document Transfer")
+    @Category("airscan")
+    @StackTrace(false)
+    public static class DocumentTransfer extends Event {
+        @Label("Scanner")
+        public String scanner;
+
+        @Label("Page")
+        public int page;
+
+        @Label("Bytes")
+        @DataAmount
+        public long bytes;
+
+        @Label("Time to First Byte")
+        @Timespan
+        public long timeToFirstByte;
+    }
+}
@@ -0,0 +1,347 @@
+/*
+ * Copyright 2026 Matthias Bläsing
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.doppel_helix.airscan;
+
+import static eu.doppel_helix.airscan.EsclClient.await;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URI;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * State machine for a single eSCL scan job.
+ *
+ * <p>
+ * {@code 503} responses are treated as "scanner busy" and retried with an
+ * exponential backoff. A {@code 404} for {@code NextDocument} is resolved by
+ * looking up the job in {@code ScannerStatus}: completed jobs end the
+ * document loop, aborted or canceled jobs are reported as error and removed
+ * from the scanner, while pending/processing jobs are polled again.</p>
+ */
+public class ScanJob {
+
+    private final EsclClient client;
+    private final ScanSettings settings;
+    private final Duration busyTimeout;
+    private final TransferWatchdog watchdog;
+    private final PhaseMetrics metrics;
+    private final String scannerLabel;
+    private final boolean debug;
+    private final Backoff backoff = new Backoff(Duration.ofMillis(200), Duration.ofSeconds(5), 1.5);
+
+    private volatile URI jobUri;
+    private volatile JobState state = JobState.PENDING;
+    private volatile List<String> stateReasons = Collections.emptyList();
+    private volatile int imagesCompleted;
+    private Page directPage;
+
+    /**
+     * @param client
+     * @param settings
+     * @param busyTimeout maximum time to wait for a busy scanner or a job
+     * that does not make progress
+     * @param debug
+     */
+    public ScanJob(EsclClient client, ScanSettings settings, Duration busyTimeout, boolean debug) {
+        this(client, settings, busyTimeout, null, debug);
+    }
+
+    /**
+     * @param client
+     * @param settings
+     * @param busyTimeout maximum time to wait for a busy scanner or a job
+     * that does not make progress
+     * @param watchdog watches the document transfers, may be {@code null}
+     * @param debug
+     */
+    public ScanJob(EsclClient client, ScanSettings settings, Duration busyTimeout, TransferWatchdog watchdog, boolean debug) {
+        this(client, settings, busyTimeout, watchdog, null, debug);
+    }
+
+    /**
+     * @param client
+     * @param settings
+     * @param busyTimeout maximum time to wait for a busy scanner or a job
+     * that does not make progress
+     * @param watchdog watches the document transfers, may be {@code null}
+     * @param metrics receives the duration of job creation and document
+     * transfers, may be {@code null}
+     * @param debug
+     */
+    public ScanJob(EsclClient client, ScanSettings settings, Duration busyTimeout, TransferWatchdog watchdog, PhaseMetrics metrics, boolean debug) {
+        this.client = client;
+        this.settings = settings;
+        this.busyTimeout = busyTimeout;
+        this.watchdog = watchdog;
+        this.metrics = metrics;
+        this.scannerLabel = PhaseMetrics.scannerLabel(client.getBaseUri());
+        this.debug = debug;
+    }
+
+    public URI getJobUri() {
+        return jobUri;
+    }
+
+    public JobState getState() {
+        return state;
+    }
+
+    public List<String> getStateReasons() {
+        return stateReasons;
+    }
+
+    public int getImagesCompleted() {
+        return imagesCompleted;
+    }
+
+    /**
+     * Create the job on the scanner.
+     *
+     * @throws IOException
+     */
+    public void start() throws IOException {
+        long deadline = System.nanoTime() + busyTimeout.toNanos();
+        backoff.reset();
+        while (true) {
+            ScanEvents.JobCreation event = new ScanEvents.JobCreation();
+            event.begin();
+            long start = System.nanoTime();
+            HttpResponse<InputStream> response = await(client.createScanJobAsync(settings));
+            event.scanner = scannerLabel;
+            event.status = response.statusCode();
+            event.commit();
+            record(PhaseMetrics.Phase.JOB_CREATION, System.nanoTime() - start, 0);
+            try (InputStream is = response.body()) {
+                if (response.statusCode() == 201) {
+                    String location = response.headers().firstValue("Location")
+                        .orElseThrow(() -> new IOException("Scanner did not report the location of the scan job"));
+                    if (debug) {
+                        System.err.println("Location Header received: " + location);
+                    }
+                    jobUri = client.resolve(location);
+                    updateState(JobState.PENDING, Collections.emptyList());
+                    return;
+                } else if (response.statusCode() == 200) {
+                    if (debug) {
+                        System.out.println("Scan initialization return http status 200");
+                    }
+                    long transferStart = System.nanoTime();
+                    directPage = new Page(1, response.headers().firstValue("Content-Type").orElse(null), is.readAllBytes());
+                    record(PhaseMetrics.Phase.TRANSFER, System.nanoTime() - transferStart, directPage.getData().length);
+                    updateState(JobState.PROCESSING, Collections.emptyList());
+                    return;
+                } else if (response.statusCode() == 503 && System.nanoTime() < deadline) {
+                    is.transferTo(OutputStream.nullOutputStream());
+                    long waited = backoff.sleep(retryAfter(response));
+                    if (debug) {
+                        System.err.printf("Scanner busy, retried job creation after %d ms%n", waited);
+                    }
+                } else {
+                    is.transferTo(System.err);
+                    throw new IOException("Scanner did not send http Status 200 or 201 (HTTP Status " + response.statusCode() + ")");
+                }
+            }
+        }
+    }
+
+    /**
+     * Continue a job created by an earlier run, for example one that was
+     * interrupted.
+     *
+     * @param job
+     * @return the state of the job as reported by the scanner or
+     * {@code null} if the scanner no longer runs the job, a new job has to
+     * be created with {@link #start()} then
+     */
+    public JobInfo attach(URI job) {
+        jobUri = job;
+        JobInfo info = queryJob();
+        if (info == null || info.getJobState().isTerminal()) {
+            if (debug) {
+                System.err.println("Scan job " + job + " is no longer active: " + info);
+            }
+            jobUri = null;
+            return null;
+        }
+        updateState(info.getJobState(), info.getJobStateReasons());
+        return info;
+    }
+
+    /**
+     * Fetch the next document.
+     *
+     * @param pageNumber number to assign to the page
+     * @return the page or {@code null} if the job is completed
+     * @throws IOException if the transfer failed or the job was aborted
+     */
+    public Page nextPage(int pageNumber) throws IOException {
+        if (directPage != null) {
+            Page page = new Page(pageNumber, directPage.getContentType(), directPage.getData());
+            directPage = null;
+            imagesCompleted++;
+            updateState(JobState.COMPLETED, Collections.emptyList());
+            return page;
+        }
+        if (jobUri == null || state.isTerminal()) {
+            return null;
+        }
+
+        long deadline = System.nanoTime() + busyTimeout.toNanos();
+        backoff.reset();
+        while (true) {
+            ScanEvents.DocumentTransfer event = new ScanEvents.DocumentTransfer();
+            event.begin();
+            long start = System.nanoTime();
+            HttpResponse<InputStream> response = await(client.nextDocumentAsync(jobUri));
+            long firstByte = System.nanoTime();
+            try (InputStream is = watchdog == null ? response.body() : watchdog.watch(response.body())) {
+                if (response.statusCode() == 200) {
+                    Page page = new Page(pageNumber, response.headers().firstValue("Content-Type").orElse(null), is.readAllBytes());
+                    long end = System.nanoTime();
+                    event.scanner = scannerLabel;
+                    event.page = pageNumber;
+                    event.bytes = page.getData().length;
+                    event.timeToFirstByte = firstByte - start;
+                    event.commit();
+                    record(PhaseMetrics.Phase.FIRST_BYTE, firstByte - start, 0);
+                    record(PhaseMetrics.Phase.TRANSFER, end - firstByte, page.getData().length);
+                    imagesCompleted++;
+                    updateState(JobState.PROCESSING, stateReasons);
+                    return page;
+                } else if (response.statusCode() == 503) {
+                    is.transferTo(OutputStream.nullOutputStream());
+                    if (System.nanoTime() > deadline) {
+                        throw new IOException("Scanner stayed busy for more than " + busyTimeout.getSeconds() + " s");
+                    }
+                    long waited = backoff.sleep(retryAfter(response));
+                    if (debug) {
+                        System.err.printf("Scanner busy, retried NextDocument after %d ms%n", waited);
+                    }
+                    continue;
+                } else if (response.statusCode() != 404) {
+                    throw new IOException("Failed to retrieve document (HTTP Status " + response.statusCode() + ")");
+                }
+                is.transferTo(OutputStream.nullOutputStream());
+            }
+
+            // 404 - either the job is done or the scanner is not ready yet
+            JobInfo info = queryJob();
+            if (info == null) {
+                // Scanner does not report the job, assume the classic
+                // behavior: 404 marks the end of the job
+                updateState(JobState.COMPLETED, stateReasons);
+                return null;
+            }
+            updateState(info.getJobState(), info.getJobStateReasons());
+            switch (info.getJobState()) {
+                case COMPLETED:
+                    return null;
+                case CANCELED:
+                case ABORTED:
+                    delete();
+                    throw new IOException("Scan job " + info.getJobState().name().toLowerCase() + " by scanner " + info.getJobStateReasons());
+                default:
+                    if (info.getImagesToTransfer() == 0 && System.nanoTime() > deadline) {
+                        // The scanner still reports the job as active, but
+                        // has nothing left to transfer
+                        return null;
+                    } else if (System.nanoTime() > deadline) {
+                        throw new IOException("Scan job did not make progress for more than " + busyTimeout.getSeconds() + " s");
+                    }
+                    backoff.sleep(null);
+            }
+        }
+    }
+
+    /**
+     * Remove the job from the scanner if it is not yet finished. Used when
+     * the client gives up on the job, so that the scanner is not blocked
+     * until the job times out.
+     */
+    public void cancelQuietly() {
+        if (jobUri == null || state.isTerminal()) {
+            return;
+        }
+        // Cancellation is commonly triggered by interrupting the thread
+        // running the job, clear the flag so that the DELETE is still sent
+        boolean interrupted = Thread.interrupted();
+        try {
+            int status = client.deleteJobAsync(jobUri).get(5, TimeUnit.SECONDS);
+            updateState(JobState.CANCELED, Collections.emptyList());
+            if (debug) {
+                System.err.printf("Canceled scan job %s (HTTP Status %d)%n", jobUri, status);
+            }
+        } catch (Exception ex) {
+            if (debug) {
+                System.err.println("Failed to cancel scan job " + jobUri + ": " + ex.getMessage());
+            }
+        } finally {
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private void delete() {
+        try {
+            client.deleteJobAsync(jobUri).get(5, TimeUnit.SECONDS);
+        } catch (Exception ex) {
+            if (debug) {
+                System.err.println("Failed to remove scan job " + jobUri + ": " + ex.getMessage());
+            }
+        }
+    }
+
+    private JobInfo queryJob() {
+        try {
+            return await(client.getScannerStatusAsync()).findJob(jobUri);
+        } catch (IOException ex) {
+            if (debug) {
+                System.err.println("Failed to query scanner status: " + ex.getMessage());
+            }
+            return null;
+        }
+    }
+
+    private void updateState(JobState newState, List<String> reasons) {
+        if (debug && newState != state) {
+            System.err.printf("Job state: %s -> %s %s (%d image(s) completed)%n", state, newState, reasons, imagesCompleted);
+        }
+        state = newState;
+        stateReasons = reasons;
+    }
+
+    private void record(PhaseMetrics.Phase phase, long nanos, long bytes) {
+        if (metrics != null) {
+            metrics.record(phase, scannerLabel, nanos, bytes);
+        }
+    }
+
+    private static Long retryAfter(HttpResponse<?> response) {
+        try {
+            return response.headers().firstValue("Retry-After").map(Long::valueOf).orElse(null);
+        } catch (NumberFormatException ex) {
+            // HTTP-date form is not used by scanners, ignore it
+            return null;
+        }
+    }
+}
@@ -0,0 +1,135 @@
+/*
+ * Copyright 2026 Matthias Bläsing
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.doppel_helix.airscan;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Scan parameters as requested by the user. Unset values are filled from
+ * the scanner capabilities by
+ * {@link ScanEngine#createSettings(eu.doppel_helix.airscan.Capabilities, eu.doppel_helix.airscan.ScanRequest)}.
+ */
+public class ScanRequest {
+    private boolean adf;
+    private boolean duplex;
+    private DuplexOrder duplexOrder = DuplexOrder.INTERLEAVED;
+    private String colorMode;
+    private Integer resolution;
+    private String documentFormat;
+    private String preferredDocumentFormat;
+    private Optimize optimize;
+    private Long pageBudget;
+    private final List<ScanRegion> regions = new ArrayList<>();
+
+    public boolean isAdf() {
+        return adf;
+    }
+
+    public void setAdf(boolean adf) {
+        this.adf = adf;
+    }
+
+    public boolean isDuplex() {
+        return duplex;
+    }
+
+    public void setDuplex(boolean duplex) {
+        this.duplex = duplex;
+    }
+
+    public DuplexOrder getDuplexOrder() {
+        return duplexOrder;
+    }
+
+    public void setDuplexOrder(DuplexOrder duplexOrder) {
+        this.duplexOrder = duplexOrder;
+    }
+
+    public String getColorMode() {
+        return colorMode;
+    }
+
+    public void setColorMode(String colorMode) {
+        this.colorMode = colorMode;
+    }
+
+    public Integer getResolution() {
+        return resolution;
+    }
+
+    public void setResolution(Integer resolution) {
+        this.resolution = resolution;
+    }
+
+    /**
+     * @return document format (MIME type or short name) that must be used
+     */
+    public String getDocumentFormat() {
+        return documentFormat;
+    }
+
+    public void setDocumentFormat(String documentFormat) {
+        this.documentFormat = documentFormat;
+    }
+
+    /**
+     * @return document format used if the scanner supports it, for example
+     * derived from the extension of the output file
+     */
+    public String getPreferredDocumentFormat() {
+        return preferredDocumentFormat;
+    }
+
+    public void setPreferredDocumentFormat(String preferredDocumentFormat) {
+        this.preferredDocumentFormat = preferredDocumentFormat;
+    }
+
+    public Optimize getOptimize() {
+        return optimize;
+    }
+
+    public void setOptimize(Optimize optimize) {
+        this.optimize = optimize;
+    }
+
+    /**
+     * @return upper bound for the size of a page in bytes or {@code null}
+     */
+    public Long getPageBudget() {
+        return pageBudget;
+    }
+
+    public void setPageBudget(Long pageBudget) {
+        this.pageBudget = pageBudget;
+    }
+
+    /**
+     * @return regions to scan, if empty the whole input source is scanned
+     */
+    public List<ScanRegion> getRegions() {
+        return regions;
+    }
+
+    /**
+     * @return {@code true} if the scanner is expected to deliver more than
+     * one document
+     */
+    public boolean isMultiPage() {
+        return adf || duplex;
+    }
+}
@@ -0,0 +1,65 @@
+/*
+ * Copyright 2026 Matthias Bläsing
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.doppel_helix.airscan;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Statistics of a finished scan job.
+ */
+public class ScanResult {
+    private final int pages;
+    private final long bytes;
+    private final long transferNanos;
+    private final long largestPage;
+
+    public ScanResult(int pages, long bytes, long transferNanos, long largestPage) {
+        this.pages = pages;
+        this.bytes = bytes;
+        this.transferNanos = transferNanos;
+        this.largestPage = largestPage;
+    }
+
+    public int getPages() {
+        return pages;
+    }
+
+    /**
+     * @return number of document bytes received from the scanner
+     */
+    public long getBytes() {
+        return bytes;
+    }
+
+    /**
+     * @return time spent waiting for and receiving documents
+     */
+    public long getTransferMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(transferNanos);
+    }
+
+    public long getLargestPage() {
+        return largestPage;
+    }
+
+    /**
+     * @return transfer rate in bytes per second
+     */
+    public double getBytesPerSecond() {
+        return transferNanos == 0 ? 0 : bytes * 1e9 / transferNanos;
+    }
+}
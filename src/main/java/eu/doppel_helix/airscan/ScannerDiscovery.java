@@ -0,0 +1,159 @@
+/*
+ * Copyright 2026 Matthias Bläsing
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.doppel_helix.airscan;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import javax.jmdns.JmmDNS;
+import javax.jmdns.ServiceEvent;
+import javax.jmdns.ServiceListener;
+
+/**
+ * Event driven discovery of eSCL scanners. In contrast to
+ * {@link JmmDNS#list(java.lang.String, long)}, which always blocks for the full
+ * timeout, callers can stop waiting as soon as a suitable scanner was
+ * resolved.
+ */
+public class ScannerDiscovery implements Closeable {
+
+    public static final String SERVICE_TYPE = "_scanner._tcp.local.";
+
+    private final JmmDNS dns;
+    private final Map<String, ScannerService> services = new LinkedHashMap<>();
+    private final List<Consumer<ScannerService>> listeners = new CopyOnWriteArrayList<>();
+    private final ServiceListener serviceListener = new ServiceListener() {
+        @Override
+        public void serviceAdded(ServiceEvent event) {
+            // Trigger resolution, the result is reported via serviceResolved
+            event.getDNS().requestServiceInfo(event.getType(), event.getName(), true);
+        }
+
+        @Override
+        public void serviceRemoved(ServiceEvent event) {
+            synchronized (services) {
+                services.remove(event.getInfo().getQualifiedName());
+            }
+        }
+
+        @Override
+        public void serviceResolved(ServiceEvent event) {
+            if (event.getInfo() == null || event.getInfo().getHostAddresses().length == 0) {
+                return;
+            }
+            ScannerService resolved = ScannerService.fromServiceInfo(event.getInfo());
+            ScannerService merged;
+            synchronized (services) {
+                // JmmDNS reports the service once for each network interface,
+                // collect all addresses reported for the service
+                merged = services.merge(resolved.getName(), resolved, ScannerService::merge);
+                services.notifyAll();
+            }
+            for (Consumer<ScannerService> listener : listeners) {
+                listener.accept(merged);
+            }
+        }
+    };
+
+    public ScannerDiscovery() {
+        dns = JmmDNS.Factory.getInstance();
+        dns.addServiceListener(SERVICE_TYPE, serviceListener);
+    }
+
+    /**
+     * Register a listener, that is invoked for each resolved service. The
+     * listener is invoked from the MDNS threads.
+     *
+     * @param listener
+     */
+    public void addListener(Consumer<ScannerService> listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(Consumer<ScannerService> listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * @return snapshot of all currently known services
+     */
+    public List<ScannerService> getServices() {
+        synchronized (services) {
+            return new ArrayList<>(services.values());
+        }
+    }
+
+    /**
+     * Wait until a service matching {@code filter} was resolved.
+     *
+     * @param filter
+     * @param timeoutMillis upper bound for the wait
+     * @return the first matching service or {@code null} if none was found
+     * within the timeout
+     * @throws InterruptedException
+     */
+    public ScannerService awaitFirst(Predicate<ScannerService> filter, long timeoutMillis) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+        synchronized (services) {
+            while (true) {
+                for (ScannerService service : services.values()) {
+                    if (filter.test(service)) {
+                        return service;
+                    }
+                }
+                long remaining = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+                if (remaining <= 0) {
+                    return null;
+                }
+                services.wait(remaining);
+            }
+        }
+    }
+
+    /**
+     * Wait for the full timeout and return all services matching
+     * {@code filter}.
+     *
+     * @param filter
+     * @param timeoutMillis
+     * @return
+     * @throws InterruptedException
+     */
+    public List<ScannerService> awaitAll(Predicate<ScannerService> filter, long timeoutMillis) throws InterruptedException {
+        Thread.sleep(timeoutMillis);
+        List<ScannerService> result = new ArrayList<>();
+        for (ScannerService service : getServices()) {
+            if (filter.test(service)) {
+                result.add(service);
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public void close() throws IOException {
+        dns.removeServiceListener(SERVICE_TYPE, serviceListener);
+        dns.close();
+    }
+}
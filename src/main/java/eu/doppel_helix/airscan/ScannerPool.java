@@ -0,0 +1,251 @@
+/*
+ * Copyright 2026 Matthias Bläsing
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.doppel_helix.airscan;
+
+import java.io.Closeable;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Set of scanners jobs are distributed over. Each device has its own job
+ * queue, processed by a dedicated worker thread, so jobs on different
+ * devices run in parallel while a single device only runs one job at a time.
+ *
+ * <p>
+ * A new job is assigned to the idle device (as reported by
+ * {@code ScannerStatus}) with the shortest queue. A device that is busy
+ * with a job from another client counts as having one more job in the
+ * queue, devices that do not answer are only used if no device answers.</p>
+ */
+public class ScannerPool implements Closeable {
+
+    private static final Duration STATUS_TIMEOUT = Duration.ofSeconds(2);
+    private static final int BUSY_PENALTY = 1;
+    private static final int UNREACHABLE_PENALTY = 1000;
+
+    public static class Device {
+        private final String url;
+        private final ScannerService service;
+        private final ExecutorService worker;
+        private final AtomicInteger queueLength = new AtomicInteger();
+
+        Device(String url, ScannerService service) {
+            this.url = url;
+            this.service = service;
+            this.worker = Executors.newSingleThreadExecutor(r -> {
+                Thread thread = new Thread(r, "airscan-job");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+
+        public String getUrl() {
+            return url;
+        }
+
+        /**
+         * @return the discovered service or {@code null} if the device was
+         * configured by URL
+         */
+        public ScannerService getService() {
+            return service;
+        }
+
+        /**
+         * @return number of queued and running jobs
+         */
+        public int getQueueLength() {
+            return queueLength.get();
+        }
+    }
+
+    private final ScanEngine engine;
+    private final ConcurrentMap<String, Device> devices = new ConcurrentHashMap<>();
+
+    public ScannerPool(ScanEngine engine) {
+        this.engine = engine;
+    }
+
+    /**
+     * @param url
+     * @param service discovered service or {@code null}
+     * @return the device for the URL, created on first use
+     */
+    public Device device(String url, ScannerService service) {
+        return devices.computeIfAbsent(url, u -> new Device(u, service));
+    }
+
+    public List<Device> getDevices() {
+        return new ArrayList<>(devices.values());
+    }
+
+    /**
+     * Select the device for a new job and reserve a place in its queue. The
+     * status of all candidates is queried concurrently and without holding
+     * the pool lock, only the final choice based on the queue lengths and
+     * the reservation are serialized. The reservation is consumed by
+     * {@link #submit(eu.doppel_helix.airscan.ScannerPool.Device, java.lang.Runnable)}
+     * or given back by {@link #release(eu.doppel_helix.airscan.ScannerPool.Device)}.
+     *
+     * @param candidates
+     * @return the selected device or {@code null} if there are no candidates
+     */
+    public Device acquire(List<Device> candidates) {
+        if (candidates.isEmpty()) {
+            return null;
+        }
+        List<ScannerStatus> states = queryStatus(candidates);
+        synchronized (this) {
+            Device selected = select(candidates, states);
+            selected.queueLength.incrementAndGet();
+            return selected;
+        }
+    }
+
+    /**
+     * @return status of each candidate, {@code null} for devices that did
+     * not answer; not queried if there is no choice
+     */
+    private List<ScannerStatus> queryStatus(List<Device> candidates) {
+        List<ScannerStatus> states = new ArrayList<>(candidates.size());
+        if (candidates.size() <= 1) {
+            return states;
+        }
+        List<CompletableFuture<ScannerStatus>> requests = new ArrayList<>(candidates.size());
+        for (Device device : candidates) {
+            requests.add(engine.getClient(device.getUrl())
+                .getScannerStatusAsync()
+                .completeOnTimeout(null, STATUS_TIMEOUT.toMillis(), TimeUnit.MILLISECONDS)
+                .exceptionally(ex -> null));
+        }
+        for (CompletableFuture<ScannerStatus> request : requests) {
+            states.add(request.join());
+        }
+        return states;
+    }
+
+    private Device select(List<Device> candidates, List<ScannerStatus> states) {
+        if (candidates.size() <= 1) {
+            return candidates.get(0);
+        }
+        Device selected = null;
+        int selectedScore = Integer.MAX_VALUE;
+        for (int i = 0; i < candidates.size(); i++) {
+            Device device = candidates.get(i);
+            ScannerStatus status = states.get(i);
+            int queueLength = device.getQueueLength();
+            int score = queueLength;
+            if (status == null) {
+                score += UNREACHABLE_PENALTY;
+            } else if (!status.isIdle()) {
+                score += BUSY_PENALTY;
+            }
+            if (engine.isDebug()) {
+                System.err.printf("Pool candidate %s: queue %d, state %s%n", device.getUrl(), queueLength,
+                    status == null ? "unreachable" : status.getState());
+            }
+            if (score < selectedScore) {
+                selected = device;
+                selectedScore = score;
+            }
+        }
+        return selected;
+    }
+
+    /**
+     * Queue a job for a device acquired before. The reservation is given
+     * back exactly once: when the job finished or, if it is canceled before
+     * it started, on cancellation.
+     *
+     * @param device
+     * @param job
+     * @return
+     */
+    public Future<?> submit(Device device, Runnable job) {
+        AtomicBoolean started = new AtomicBoolean();
+        AtomicBoolean released = new AtomicBoolean();
+        Runnable release = () -> {
+            if (released.compareAndSet(false, true)) {
+                device.queueLength.decrementAndGet();
+            }
+        };
+        FutureTask<Void> task = new FutureTask<Void>(() -> {
+            started.set(true);
+            try {
+                job.run();
+            } finally {
+                release.run();
+            }
+        }, null) {
+            @Override
+            protected void done() {
+                // A task canceled while queued is never run
+                if (!started.get()) {
+                    release.run();
+                }
+            }
+        };
+        device.worker.execute(task);
+        return task;
+    }
+
+    /**
+     * Give back a reservation, if the job is not submitted.
+     *
+     * @param device
+     */
+    public void release(Device device) {
+        device.queueLength.decrementAndGet();
+    }
+
+    /**
+     * Build the pool key of a service from the values of the given TXT
+     * record keys, for example {@code mdl} or {@code ty}.
+     *
+     * @param service
+     * @param keys
+     * @return the value of the first key present in the TXT record or
+     * {@code null}
+     */
+    public static String groupOf(ScannerService service, List<String> keys) {
+        for (String key : keys) {
+            String value = service.getTxt().get(key);
+            if (value != null && (!value.isBlank())) {
+                return value;
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public void close() {
+        for (Device device : devices.values()) {
+            device.worker.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,142 @@
+/*
+ * Copyright 2026 Matthias Bläsing
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.doppel_helix.airscan;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import javax.jmdns.ServiceInfo;
+
+/**
+ * A resolved eSCL service, either found via MDNS or restored from the
+ * discovery cache.
+ */
+public class ScannerService {
+    private final String name;
+    private final byte[] txtBytes;
+    private final TxtRecord txt;
+    private final List<String> hostAddresses;
+    private final int port;
+
+    public ScannerService(String name, byte[] txtBytes, List<String> hostAddresses, int port) {
+        this.name = name;
+        this.txtBytes = txtBytes == null ? new byte[0] : txtBytes;
+        this.txt = new TxtRecord(this.txtBytes);
+        this.hostAddresses = Collections.unmodifiableList(new ArrayList<>(hostAddresses));
+        this.port = port;
+    }
+
+    public static ScannerService fromServiceInfo(ServiceInfo si) {
+        return new ScannerService(
+            si.getQualifiedName(),
+            si.getTextBytes(),
+            Arrays.asList(si.getHostAddresses()),
+            si.getPort()
+        );
+    }
+
+    /**
+     * Combine two resolutions of the same service. The TXT record of
+     * {@code other} wins, host addresses are joined.
+     *
+     * @param other
+     * @return
+     */
+    public ScannerService merge(ScannerService other) {
+        Set<String> addresses = new LinkedHashSet<>(hostAddresses);
+        addresses.addAll(other.getHostAddresses());
+        return new ScannerService(name, other.getTxtBytes(), new ArrayList<>(addresses), other.getPort());
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public byte[] getTxtBytes() {
+        return txtBytes;
+    }
+
+    public TxtRecord getTxt() {
+        return txt;
+    }
+
+    public List<String> getHostAddresses() {
+        return hostAddresses;
+    }
+
+    public int getPort() {
+        return port;
+    }
+
+    public String getDisplayName() {
+        if (txt.hasValue("mdl") && txt.hasValue("mfg")) {
+            return txt.get("mfg") + " " + txt.get("mdl");
+        } else if (txt.hasValue("ty")) {
+            return txt.get("ty");
+        } else {
+            return name;
+        }
+    }
+
+    public List<String> getUrls() {
+        List<String> urls = new ArrayList<>(hostAddresses.size());
+        for (String host : hostAddresses) {
+            urls.add(urlFor(host, port));
+        }
+        return urls;
+    }
+
+    /**
+     * Build the eSCL base URL for an address literal. IPv6 addresses are
+     * enclosed in brackets, the scope (zone) of link local addresses is
+     * kept, so that the address is usable.
+     *
+     * @param host
+     * @param port
+     * @return
+     */
+    public static String urlFor(String host, int port) {
+        if (host.contains(":") && !host.startsWith("[")) {
+            host = "[" + host + "]";
+        }
+        return String.format("http://%s:%d/eSCL/", host, port);
+    }
+
+    /**
+     * @return URL to use for the service without probing the addresses,
+     * IPv4 addresses are preferred as IPv6 link local addresses are not
+     * usable without a scope
+     * @see AddressSelector
+     */
+    public String getPreferredUrl() {
+        List<String> urls = getUrls();
+        for (int i = 0; i < hostAddresses.size(); i++) {
+            if (!hostAddresses.get(i).contains(":")) {
+                return urls.get(i);
+            }
+        }
+        return urls.isEmpty() ? null : urls.get(0);
+    }
+
+    @Override
+    public String toString() {
+        return "ScannerService{" + "name=" + name + ", txt=" + txt + ", hostAddresses=" + hostAddresses + ", port=" + port + '}';
+    }
+}
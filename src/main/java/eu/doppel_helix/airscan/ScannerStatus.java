@@ -0,0 +1,172 @@
+/*
+ * Copyright 2026 Matthias Bläsing
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.doppel_helix.airscan;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+/**
+ * Parsed {@code ScannerStatus} document.
+ */
+public class ScannerStatus {
+    private String version;
+    private String state;
+    private String adfState;
+    private final List<JobInfo> jobs = new ArrayList<>();
+
+    public String getVersion() {
+        return version;
+    }
+
+    public String getState() {
+        return state;
+    }
+
+    public String getAdfState() {
+        return adfState;
+    }
+
+    public List<JobInfo> getJobs() {
+        return jobs;
+    }
+
+    public boolean isIdle() {
+        return "Idle".equals(state);
+    }
+
+    /**
+     * Find the entry for a job. The job URI in the status document is
+     * usually relative, so only the paths are compared. Entries with an
+     * invalid job URI are skipped.
+     *
+     * @param job
+     * @return the job info or {@code null} if the scanner does not list the
+     * job
+     */
+    public JobInfo findJob(URI job) {
+        String jobPath = stripTrailingSlash(job.getPath());
+        for (JobInfo info : jobs) {
+            if (info.getJobUri() == null) {
+                continue;
+            }
+            String infoPath;
+            try {
+                infoPath = job.resolve(info.getJobUri()).getPath();
+            } catch (IllegalArgumentException ex) {
+                // Not a valid URI reference, can not be the job
+                continue;
+            }
+            if (infoPath != null && stripTrailingSlash(infoPath).equals(jobPath)) {
+                return info;
+            }
+        }
+        return null;
+    }
+
+    private static String stripTrailingSlash(String path) {
+        return path.endsWith("/") ? path.substring(0, path.length() - 1) : path;
+    }
+
+    public static ScannerStatus parse(InputStream is) throws IOException {
+        ScannerStatus status = new ScannerStatus();
+        XMLStreamReader reader = null;
+        try {
+            reader = Capabilities.XML_INPUT_FACTORY.createXMLStreamReader(is);
+            StringBuilder text = new StringBuilder();
+            JobInfo current = null;
+            while (reader.hasNext()) {
+                int event = reader.next();
+                if (event == XMLStreamConstants.START_ELEMENT) {
+                    text.setLength(0);
+                    if ("JobInfo".equals(reader.getLocalName())) {
+                        current = new JobInfo();
+                    }
+                } else if (event == XMLStreamConstants.CHARACTERS || event == XMLStreamConstants.CDATA) {
+                    text.append(reader.getTextCharacters(), reader.getTextStart(), reader.getTextLength());
+                } else if (event == XMLStreamConstants.END_ELEMENT) {
+                    String value = text.toString().trim();
+                    text.setLength(0);
+                    if (current != null) {
+                        switch (reader.getLocalName()) {
+                            case "JobUri":
+                                current.setJobUri(value);
+                                break;
+                            case "JobUuid":
+                                current.setJobUuid(value);
+                                break;
+                            case "Age":
+                                current.setAge(Integer.parseInt(value));
+                                break;
+                            case "ImagesCompleted":
+                                current.setImagesCompleted(Integer.parseInt(value));
+                                break;
+                            case "ImagesToTransfer":
+                                current.setImagesToTransfer(Integer.parseInt(value));
+                                break;
+                            case "JobState":
+                                current.setJobState(JobState.fromEscl(value));
+                                break;
+                            case "JobStateReason":
+                                current.getJobStateReasons().add(value);
+                                break;
+                            case "JobInfo":
+                                status.jobs.add(current);
+                                current = null;
+                                break;
+                            default:
+                        }
+                    } else {
+                        switch (reader.getLocalName()) {
+                            case "Version":
+                                status.version = value;
+                                break;
+                            case "State":
+                                status.state = value;
+                                break;
+                            case "AdfState":
+                                status.adfState = value;
+                                break;
+                            default:
+                        }
+                    }
+                }
+            }
+        } catch (XMLStreamException | NumberFormatException ex) {
+            throw new IOException(ex);
+        } finally {
+            if (reader != null) {
+                try {
+                    reader.close();
+                } catch (XMLStreamException ex) {
+                    // Ignore, the stream is closed by the caller
+                }
+            }
+        }
+        return status;
+    }
+
+    @Override
+    public String toString() {
+        return "ScannerStatus{" + "state=" + state + ", adfState=" + adfState + ", jobs=" + jobs + '}';
+    }
+}
@@ -0,0 +1,457 @@
+/*
+ * Copyright 2026 Matthias Bläsing
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.doppel_helix.airscan;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+import picocli.CommandLine;
+import picocli.CommandLine.Option;
+
+/**
+ * Long running mode: discovery, scanner connections and capabilities are
+ * kept alive and scan jobs are accepted through a local HTTP/JSON API.
+ *
+ * <pre>
+ * GET    /scanners                 discovered scanners
+ * GET    /jobs                     all known jobs
+ * POST   /jobs                     submit a job, body: {"scanner": "...", "pool": "...", "adf": true, "duplex": false,
+ *                                  "duplexOrder": "INTERLEAVED", "colorMode": "RGB24", "resolution": 300,
+ *                                  "format": "jpeg", "optimize": "SIZE", "pageBudget": 1000000,
+ *                                  "regions": ["10,10,90,55", ...]}
+ * GET    /jobs/{id}                job state and received pages
+ * GET    /jobs/{id}/pages/{n}      page data, waits until the page was received
+ * DELETE /jobs/{id}                cancel the job and remove the pages
+ * GET    /metrics                  phase durations in the Prometheus text format
+ * </pre>
+ *
+ * <p>
+ * Jobs are dispatched through a {@link ScannerPool}: a job that does not
+ * name a scanner runs on the idle scanner with the shortest queue among the
+ * candidates.</p>
+ */
+@CommandLine.Command(
+    name = "serve",
+    mixinStandardHelpOptions = true,
+    versionProvider = VersionProvider.class,
+    description = "Keep discovery and scanner connections alive and accept scan jobs through a local HTTP/JSON API"
+)
+public class ServeCommand implements Callable<Integer> {
+
+    private static final long PAGE_WAIT_MILLIS = 300_000;
+
+    @CommandLine.ParentCommand
+    private SimpleScan parent;
+
+    @Option(names = {"--bind"}, description = "Address to listen on (Default: ${DEFAULT-VALUE})")
+    private String bindAddress = "127.0.0.1";
+
+    @Option(names = {"-p", "--port"}, description = "Port to listen on (Default: ${DEFAULT-VALUE})")
+    private int port = 8632;
+
+    @Option(names = {"--spool-dir"}, description = "Directory for received pages (Default: temporary directory)")
+    private Path spoolDirectory;
+
+    @Option(names = {"--job-retention"}, description = "Time in seconds finished jobs and their pages are kept (Default: ${DEFAULT-VALUE})")
+    private long jobRetention = 3600;
+
+    @Option(names = {"--pool-by"}, split = ",", description = "TXT record keys that group identical scanners into a pool, a job selects the pool with the \"pool\" property (Default: ${DEFAULT-VALUE})")
+    private List<String> poolBy = new ArrayList<>(List.of("mdl", "ty"));
+
+    @Option(names = {"--pool-url"}, description = "URL of a scanner in the pool used for jobs that select neither a scanner nor a pool (repeatable)")
+    private List<String> poolUrls = new ArrayList<>();
+
+    @Option(names = {"--metrics-interval"}, description = "Time in seconds between two writes of the --metrics file (Default: ${DEFAULT-VALUE})")
+    private long metricsInterval = 60;
+
+    private ScanEngine engine;
+    private ScannerPool scannerPool;
+    private ScannerDiscovery discovery;
+    private Predicate<ScannerService> matcher;
+    private final ConcurrentMap<String, ServeJob> jobs = new ConcurrentHashMap<>();
+
+    @Override
+    public Integer call() throws Exception {
+        if (spoolDirectory == null) {
+            spoolDirectory = Files.createTempDirectory("airscan-serve");
+        }
+        engine = parent.createEngine();
+        scannerPool = new ScannerPool(engine);
+        matcher = new ServiceMatcher(parent.getMatch());
+        discovery = new ScannerDiscovery();
+        if (parent.isDebug()) {
+            discovery.addListener(s -> System.err.println("Discovered scanner: " + s.getDisplayName()));
+        }
+
+        HttpServer server = HttpServer.create(new InetSocketAddress(bindAddress, port), 0);
+        server.createContext("/scanners", this::handleScanners);
+        server.createContext("/jobs", this::handleJobs);
+        server.createContext("/metrics", this::handleMetrics);
+        server.setExecutor(Executors.newCachedThreadPool(daemonThreads("airscan-api")));
+
+        ScheduledExecutorService housekeeping = Executors.newSingleThreadScheduledExecutor(daemonThreads("airscan-housekeeping"));
+        housekeeping.scheduleWithFixedDelay(this::expireJobs, 60, 60, TimeUnit.SECONDS);
+        if (parent.getMetricsFile() != null && metricsInterval > 0) {
+            housekeeping.scheduleWithFixedDelay(() -> parent.writeMetrics(engine.getMetrics()),
+                metricsInterval, metricsInterval, TimeUnit.SECONDS);
+        }
+
+        CountDownLatch shutdown = new CountDownLatch(1);
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            server.stop(0);
+            for (ServeJob job : jobs.values()) {
+                job.cancel();
+            }
+            scannerPool.close();
+            parent.writeMetrics(engine.getMetrics());
+            engine.close();
+            try {
+                discovery.close();
+            } catch (IOException ex) {
+                // Shutting down
+            }
+            shutdown.countDown();
+        }, "airscan-serve-shutdown"));
+
+        server.start();
+        System.out.printf("%20s: http://%s:%d/%n", "Listening on", bindAddress, server.getAddress().getPort());
+        System.out.printf("%20s: %s%n", "Spool directory", spoolDirectory);
+        shutdown.await();
+        return 0;
+    }
+
+    private void handleScanners(HttpExchange exchange) throws IOException {
+        try {
+            if (!"GET".equals(exchange.getRequestMethod())) {
+                sendError(exchange, 405, "Method not allowed");
+                return;
+            }
+            List<Object> result = new ArrayList<>();
+            if (parent.getScannerUrl() != null) {
+                Map<String, Object> entry = new LinkedHashMap<>();
+                entry.put("name", parent.getScannerUrl());
+                entry.put("urls", Collections.singletonList(parent.getScannerUrl()));
+                result.add(entry);
+            }
+            for (ScannerService service : discovery.getServices()) {
+                if (!matcher.test(service)) {
+                    continue;
+                }
+                Map<String, Object> entry = new LinkedHashMap<>();
+                entry.put("name", service.getName());
+                entry.put("displayName", service.getDisplayName());
+                entry.put("uuid", service.getTxt().get("uuid"));
+                entry.put("pool", ScannerPool.groupOf(service, poolBy));
+                int queueLength = 0;
+                for (ScannerPool.Device device : scannerPool.getDevices()) {
+                    if (device.getService() != null && device.getService().getName().equals(service.getName())) {
+                        queueLength += device.getQueueLength();
+                    }
+                }
+                entry.put("queueLength", queueLength);
+                entry.put("urls", service.getUrls());
+                entry.put("txt", service.getTxt().toMap());
+                result.add(entry);
+            }
+            sendJson(exchange, 200, result);
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private void handleMetrics(HttpExchange exchange) throws IOException {
+        try {
+            if (!"GET".equals(exchange.getRequestMethod())) {
+                sendError(exchange, 405, "Method not allowed");
+                return;
+            }
+            byte[] body = engine.getMetrics().toPrometheus().getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", "text/plain; version=0.0.4; charset=utf-8");
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream os = exchange.getResponseBody()) {
+                os.write(body);
+            }
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private void handleJobs(HttpExchange exchange) throws IOException {
+        try {
+            String[] path = exchange.getRequestURI().getPath().replaceAll("^/+|/+$", "").split("/");
+            String method = exchange.getRequestMethod();
+            if (path.length == 1 && "GET".equals(method)) {
+                List<Object> result = new ArrayList<>();
+                for (ServeJob job : jobs.values()) {
+                    result.add(job.toJson());
+                }
+                sendJson(exchange, 200, result);
+            } else if (path.length == 1 && "POST".equals(method)) {
+                submitJob(exchange);
+            } else if (path.length == 2 || path.length == 4) {
+                ServeJob job = jobs.get(path[1]);
+                if (job == null) {
+                    sendError(exchange, 404, "Unknown job");
+                } else if (path.length == 2 && "GET".equals(method)) {
+                    sendJson(exchange, 200, job.toJson());
+                } else if (path.length == 2 && "DELETE".equals(method)) {
+                    jobs.remove(job.getId());
+                    job.cancel();
+                    sendJson(exchange, 200, job.toJson());
+                } else if (path.length == 4 && "pages".equals(path[2]) && "GET".equals(method)) {
+                    sendPage(exchange, job, path[3]);
+                } else {
+                    sendError(exchange, 405, "Method not allowed");
+                }
+            } else {
+                sendError(exchange, 404, "Not found");
+            }
+        } catch (RuntimeException ex) {
+            sendError(exchange, 500, String.valueOf(ex.getMessage()));
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private void submitJob(HttpExchange exchange) throws IOException {
+        ScanRequest request = new ScanRequest();
+        String selector;
+        String pool;
+        try (InputStream is = exchange.getRequestBody()) {
+            String body = new String(is.readAllBytes(), StandardCharsets.UTF_8);
+            Map<?, ?> json = body.isBlank() ? Collections.emptyMap() : (Map<?, ?>) Json.parse(body);
+            selector = (String) json.get("scanner");
+            pool = (String) json.get("pool");
+            request.setAdf(Boolean.TRUE.equals(json.get("adf")));
+            request.setDuplex(Boolean.TRUE.equals(json.get("duplex")));
+            if (json.get("duplexOrder") != null) {
+                request.setDuplexOrder(DuplexOrder.valueOf(((String) json.get("duplexOrder")).toUpperCase(Locale.ROOT)));
+            }
+            request.setColorMode((String) json.get("colorMode"));
+            if (json.get("resolution") != null) {
+                request.setResolution(((Number) json.get("resolution")).intValue());
+            }
+            request.setDocumentFormat((String) json.get("format"));
+            if (json.get("optimize") != null) {
+                request.setOptimize(Optimize.valueOf(((String) json.get("optimize")).toUpperCase(Locale.ROOT)));
+            }
+            if (json.get("pageBudget") != null) {
+                request.setPageBudget(((Number) json.get("pageBudget")).longValue());
+            }
+            if (json.get("regions") != null) {
+                for (Object region : (List<?>) json.get("regions")) {
+                    request.getRegions().add(SimpleScan.parseRegion((String) region));
+                }
+            }
+        } catch (IllegalArgumentException | ClassCastException ex) {
+            sendError(exchange, 400, "Invalid request: " + ex.getMessage());
+            return;
+        }
+
+        List<ScannerPool.Device> candidates;
+        try {
+            candidates = resolveCandidates(selector, pool);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            sendError(exchange, 503, "Interrupted");
+            return;
+        }
+        ScannerPool.Device device = scannerPool.acquire(candidates);
+        if (device == null) {
+            sendError(exchange, 503, "No matching scanner found");
+            return;
+        }
+
+        ScanSettings settings;
+        try {
+            EsclClient client = engine.getClient(device.getUrl());
+            settings = engine.createSettings(engine.getCapabilities(client, device.getService()), request);
+        } catch (IllegalArgumentException ex) {
+            scannerPool.release(device);
+            sendError(exchange, 400, ex.getMessage());
+            return;
+        } catch (IOException ex) {
+            scannerPool.release(device);
+            sendError(exchange, 502, "Failed to query scanner: " + ex.getMessage());
+            return;
+        }
+
+        String id = UUID.randomUUID().toString();
+        ServeJob job = new ServeJob(id, device.getUrl(), settings, request.getDuplexOrder(), spoolDirectory.resolve(id));
+        jobs.put(id, job);
+        job.setFuture(scannerPool.submit(device, () -> runJob(job)));
+
+        exchange.getResponseHeaders().set("Location", "/jobs/" + id);
+        sendJson(exchange, 201, job.toJson());
+    }
+
+    /**
+     * Determine the devices a job may run on: an explicitly selected
+     * scanner, the configured pool URLs or all discovered scanners (of the
+     * requested pool).
+     */
+    private List<ScannerPool.Device> resolveCandidates(String selector, String pool) throws InterruptedException {
+        List<ScannerPool.Device> candidates = new ArrayList<>();
+        if (selector != null && selector.startsWith("http")) {
+            candidates.add(scannerPool.device(selector, null));
+        } else if (selector == null && pool == null && (!poolUrls.isEmpty())) {
+            for (String url : poolUrls) {
+                candidates.add(scannerPool.device(url, null));
+            }
+        } else if (selector == null && pool == null && parent.getScannerUrl() != null) {
+            candidates.add(scannerPool.device(parent.getScannerUrl(), null));
+        } else {
+            Predicate<ScannerService> filter = matcher.and(selects(selector)).and(inPool(pool));
+            // Wait for the first service, the listener might just have been
+            // started
+            ScannerService first = discovery.awaitFirst(filter, parent.getTimeout() * 1000L);
+            if (first == null) {
+                return candidates;
+            }
+            if (selector != null) {
+                candidates.add(scannerPool.device(engine.selectUrl(first), first));
+            } else {
+                for (ScannerService service : discovery.getServices()) {
+                    if (filter.test(service)) {
+                        candidates.add(scannerPool.device(engine.selectUrl(service), service));
+                    }
+                }
+            }
+        }
+        return candidates;
+    }
+
+    private Predicate<ScannerService> inPool(String pool) {
+        if (pool == null) {
+            return s -> true;
+        }
+        return s -> pool.equalsIgnoreCase(ScannerPool.groupOf(s, poolBy));
+    }
+
+    private static Predicate<ScannerService> selects(String selector) {
+        if (selector == null) {
+            return s -> true;
+        }
+        String lowerSelector = selector.toLowerCase(Locale.ROOT);
+        return s -> selector.equals(s.getName())
+            || selector.equals(s.getTxt().get("uuid"))
+            || s.getDisplayName().toLowerCase(Locale.ROOT).contains(lowerSelector);
+    }
+
+    private void runJob(ServeJob job) {
+        if (!job.markRunning()) {
+            return;
+        }
+        try {
+            ScanResult result = engine.scan(engine.getClient(job.getScannerUrl()), job.getSettings(), job.getDuplexOrder(), job.createSink());
+            job.markCompleted(result);
+            if (parent.isDebug()) {
+                System.err.printf("Job %s completed with %d page(s)%n", job.getId(), result.getPages());
+            }
+        } catch (IOException | RuntimeException ex) {
+            job.markFailed(ex.getMessage());
+            if (parent.isDebug()) {
+                System.err.printf("Job %s failed: %s%n", job.getId(), ex.getMessage());
+            }
+        } finally {
+            job.jobFinished();
+        }
+    }
+
+    private void sendPage(HttpExchange exchange, ServeJob job, String pageParam) throws IOException {
+        int pageNumber;
+        try {
+            pageNumber = Integer.parseInt(pageParam);
+        } catch (NumberFormatException ex) {
+            sendError(exchange, 400, "Invalid page number");
+            return;
+        }
+        Page page;
+        try {
+            page = pageNumber < 1 ? null : job.awaitPage(pageNumber, PAGE_WAIT_MILLIS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            sendError(exchange, 503, "Interrupted");
+            return;
+        }
+        Path file = job.fileFor(pageNumber);
+        if (page == null || (!Files.exists(file))) {
+            sendError(exchange, 404, "Page not available");
+            return;
+        }
+        if (page.getContentType() != null) {
+            exchange.getResponseHeaders().set("Content-Type", page.getContentType());
+        }
+        exchange.sendResponseHeaders(200, Files.size(file));
+        try (OutputStream os = exchange.getResponseBody()) {
+            Files.copy(file, os);
+        }
+    }
+
+    private void expireJobs() {
+        long limit = System.currentTimeMillis() - jobRetention * 1000L;
+        for (ServeJob job : jobs.values()) {
+            if (job.getState().isTerminal() && job.getFinished() < limit) {
+                jobs.remove(job.getId());
+                job.deleteSpool();
+            }
+        }
+    }
+
+    private static void sendError(HttpExchange exchange, int status, String message) throws IOException {
+        sendJson(exchange, status, Collections.singletonMap("error", message));
+    }
+
+    private static void sendJson(HttpExchange exchange, int status, Object value) throws IOException {
+        byte[] body = Json.write(value).getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(status, body.length);
+        try (OutputStream os = exchange.getResponseBody()) {
+            os.write(body);
+        }
+    }
+
+    private static ThreadFactory daemonThreads(String name) {
+        return r -> {
+            Thread thread = new Thread(r, name);
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
@@ -0,0 +1,263 @@
+/*
+ * Copyright 2026 Matthias Bläsing
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.doppel_helix.airscan;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Future;
+import java.util.stream.Stream;
+
+/**
+ * A scan job submitted through the HTTP API of the {@code serve} mode. Pages
+ * are spooled to disk as they arrive, so that clients can fetch them while
+ * the scanner is still working.
+ */
+public class ServeJob {
+
+    public enum State {
+        QUEUED, RUNNING, COMPLETED, FAILED, CANCELED;
+
+        public boolean isTerminal() {
+            return this == COMPLETED || this == FAILED || this == CANCELED;
+        }
+    }
+
+    private final String id;
+    private final String scannerUrl;
+    private final ScanSettings settings;
+    private final DuplexOrder duplexOrder;
+    private final Path spoolDirectory;
+    private final long created = System.currentTimeMillis();
+    private final List<Page> pages = new ArrayList<>();
+    private final List<Integer> pageSizes = new ArrayList<>();
+    private State state = State.QUEUED;
+    private String error;
+    private long finished;
+    private ScanResult scanResult;
+    private Future<?> future;
+
+    public ServeJob(String id, String scannerUrl, ScanSettings settings, DuplexOrder duplexOrder, Path spoolDirectory) {
+        this.id = id;
+        this.scannerUrl = scannerUrl;
+        this.settings = settings;
+        this.duplexOrder = duplexOrder;
+        this.spoolDirectory = spoolDirectory;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public String getScannerUrl() {
+        return scannerUrl;
+    }
+
+    public ScanSettings getSettings() {
+        return settings;
+    }
+
+    public DuplexOrder getDuplexOrder() {
+        return duplexOrder;
+    }
+
+    public synchronized State getState() {
+        return state;
+    }
+
+    public synchronized long getFinished() {
+        return finished;
+    }
+
+    synchronized void setFuture(Future<?> future) {
+        this.future = future;
+    }
+
+    /**
+     * Mark the job as running.
+     *
+     * @return {@code false} if the job was canceled while it was queued
+     */
+    synchronized boolean markRunning() {
+        if (state != State.QUEUED) {
+            return false;
+        }
+        state = State.RUNNING;
+        return true;
+    }
+
+    synchronized void markCompleted(ScanResult scanResult) {
+        this.scanResult = scanResult;
+        finish(State.COMPLETED, null);
+    }
+
+    synchronized void markFailed(String message) {
+        finish(State.FAILED, message);
+    }
+
+    /**
+     * Cancel the job. A running job is interrupted, which removes the job
+     * from the scanner, the spooled pages are deleted. The spool of a running
+     * job is deleted by the job thread once the scan stopped, see
+     * {@link #jobFinished()}, else a page in transit could be written after
+     * the deletion.
+     */
+    public void cancel() {
+        Future<?> running;
+        boolean wasRunning;
+        synchronized (this) {
+            running = future;
+            wasRunning = state == State.RUNNING;
+            if (!state.isTerminal()) {
+                finish(State.CANCELED, null);
+            }
+        }
+        if (running != null) {
+            running.cancel(true);
+        }
+        if (!wasRunning) {
+            deleteSpool();
+        }
+    }
+
+    /**
+     * Invoked by the job thread after the scan stopped, removes the spool of
+     * a job that was canceled while it was running.
+     */
+    void jobFinished() {
+        if (getState() == State.CANCELED) {
+            deleteSpool();
+        }
+    }
+
+    private void finish(State newState, String message) {
+        if (state.isTerminal()) {
+            return;
+        }
+        state = newState;
+        error = message;
+        finished = System.currentTimeMillis();
+        notifyAll();
+    }
+
+    /**
+     * Wait until page {@code pageNumber} was received or the job finished.
+     *
+     * @param pageNumber
+     * @param timeoutMillis
+     * @return the spooled page (data is not held in memory) or {@code null}
+     * if the job finished without delivering the page or the timeout
+     * elapsed
+     * @throws InterruptedException
+     */
+    public synchronized Page awaitPage(int pageNumber, long timeoutMillis) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + timeoutMillis;
+        while (pages.size() < pageNumber && (!state.isTerminal())) {
+            long remaining = deadline - System.currentTimeMillis();
+            if (remaining <= 0) {
+                return null;
+            }
+            wait(remaining);
+        }
+        if (pages.size() < pageNumber || state == State.CANCELED) {
+            return null;
+        }
+        return pages.get(pageNumber - 1);
+    }
+
+    public Path fileFor(int pageNumber) {
+        return spoolDirectory.resolve(String.format("page-%03d", pageNumber));
+    }
+
+    /**
+     * @return sink storing the pages in the spool directory
+     */
+    PageSink createSink() {
+        return new PageSink() {
+            @Override
+            public void write(Page page) throws IOException {
+                if (getState().isTerminal()) {
+                    throw new IOException("Job was canceled");
+                }
+                Files.createDirectories(spoolDirectory);
+                Files.write(fileFor(page.getNumber()), page.getData());
+                synchronized (ServeJob.this) {
+                    pages.add(new Page(page.getNumber(), page.getContentType(), new byte[0]));
+                    pageSizes.add(page.getData().length);
+                    ServeJob.this.notifyAll();
+                }
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+    }
+
+    void deleteSpool() {
+        if (!Files.isDirectory(spoolDirectory)) {
+            return;
+        }
+        try (Stream<Path> files = Files.walk(spoolDirectory)) {
+            files.sorted(Comparator.reverseOrder()).forEach(p -> p.toFile().delete());
+        } catch (IOException ex) {
+            // Spool is located in a temporary directory, leftovers are not
+            // critical
+        }
+    }
+
+    public synchronized Map<String, Object> toJson() {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("id", id);
+        result.put("state", state);
+        result.put("scanner", scannerUrl);
+        result.put("inputSource", settings.getInputSource());
+        result.put("duplex", settings.isDuplex());
+        result.put("colorMode", settings.getColorMode());
+        result.put("resolution", settings.getXResolution());
+        result.put("documentFormat", settings.getDocumentFormat());
+        result.put("compressionFactor", settings.getCompressionFactor());
+        result.put("created", created);
+        if (finished != 0) {
+            result.put("finished", finished);
+        }
+        if (error != null) {
+            result.put("error", error);
+        }
+        if (scanResult != null) {
+            result.put("bytes", scanResult.getBytes());
+            result.put("transferMillis", scanResult.getTransferMillis());
+        }
+        List<Object> pageList = new ArrayList<>();
+        for (int i = 0; i < pages.size(); i++) {
+            Page page = pages.get(i);
+            Map<String, Object> pageInfo = new LinkedHashMap<>();
+            pageInfo.put("number", page.getNumber());
+            pageInfo.put("contentType", page.getContentType());
+            pageInfo.put("size", pageSizes.get(i));
+            pageInfo.put("href", "/jobs/" + id + "/pages/" + page.getNumber());
+            pageList.add(pageInfo);
+        }
+        result.put("pages", pageList);
+        return result;
+    }
+}
@@ -0,0 +1,65 @@
+/*
+ * Copyright 2026 Matthias Bläsing
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.doppel_helix.airscan;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.function.Predicate;
+
+/**
+ * Filter for discovered services based on their TXT record. Each criterion
+ * has the form {@code key=value} (the TXT value has to contain
+ * {@code value}, compared case-insensitive) or just {@code key} (the key has
+ * to be present). All criteria have to match.
+ */
+public class ServiceMatcher implements Predicate<ScannerService> {
+
+    public static final ServiceMatcher ALL = new ServiceMatcher(Collections.emptyList());
+
+    private final List<String> keys = new ArrayList<>();
+    private final List<String> values = new ArrayList<>();
+
+    public ServiceMatcher(List<String> criteria) {
+        for (String criterion : criteria) {
+            int eqPos = criterion.indexOf('=');
+            if (eqPos >= 0) {
+                keys.add(criterion.substring(0, eqPos));
+                values.add(criterion.substring(eqPos + 1).toLowerCase(Locale.ROOT));
+            } else {
+                keys.add(criterion);
+                values.add(null);
+            }
+        }
+    }
+
+    @Override
+    public boolean test(ScannerService service) {
+        for (int i = 0; i < keys.size(); i++) {
+            if (!service.getTxt().contains(keys.get(i))) {
+                return false;
+            }
+            String expected = values.get(i);
+            String actual = service.getTxt().get(keys.get(i));
+            if (expected != null && (actual == null || (!actual.toLowerCase(Locale.ROOT).contains(expected)))) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -16,25 +16,18 @@
 
 package eu.doppel_helix.airscan;
 
-import static eu.doppel_helix.airscan.MDNSUtil.parseTxt;
 import java.io.File;
-import java.io.FileOutputStream;
 import java.io.IOException;
-import java.io.InputStream;
-import java.io.OutputStream;
-import java.net.HttpURLConnection;
-import java.net.MalformedURLException;
-import java.net.URL;
-import java.nio.charset.StandardCharsets;
-import java.util.Map;
+import java.io.PrintStream;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 import java.util.concurrent.Callable;
-import javax.jmdns.JmmDNS;
-import javax.jmdns.ServiceInfo;
-import javax.xml.parsers.DocumentBuilder;
-import javax.xml.parsers.DocumentBuilderFactory;
-import javax.xml.parsers.ParserConfigurationException;
-import javax.xml.xpath.XPath;
-import javax.xml.xpath.XPathFactory;
 import picocli.CommandLine;
 import picocli.CommandLine.Option;
 
@@ -42,22 +35,37 @@ import picocli.CommandLine.Option;
     name = "airscan",
     mixinStandardHelpOptions = true,
     versionProvider = VersionProvider.class,
-    description = "Scan from an \"air scan\" scanner"
+    description = "Scan from an \"air scan\" scanner",
+    subcommands = {ServeCommand.class, InventoryCommand.class}
 )
 public class SimpleScan implements Callable<Integer> {
 
     public static void main(String[] argv) throws Exception {
-        System.exit(new CommandLine(new SimpleScan()).execute(argv));
+        System.exit(new CommandLine(new SimpleScan())
+            .setCaseInsensitiveEnumValuesAllowed(true)
+            .execute(argv));
     }
 
-    private static final String SEPARATOR = "================================================================================";
+    private static final Duration PROBE_TIMEOUT = Duration.ofMillis(750);
 
-    @Option(names = {"-o", "--output"}, description = "Output filename", defaultValue = "output.jpg")
+    /**
+     * Exit code if a transfer stalled or the scan took too long, retrying is
+     * expected to help.
+     */
+    static final int EXIT_TRANSFER_TIMEOUT = 3;
+
+    @Option(names = {"-o", "--output"}, description = "Output filename, all pages are collected into one file if it ends with .pdf, - writes the documents to standard output", defaultValue = "output.jpg")
     private File outputFile;
 
     @Option(names = {"-t", "--timeout"}, description = "Timeout in seconds to search for scanner")
     private int timeout = 1;
 
+    @Option(names = {"-m", "--match"}, description = "Only use scanners whose TXT record matches (key=value, value is matched case-insensitive as substring, e.g. mdl=OfficeJet, repeatable)")
+    private List<String> match = new ArrayList<>();
+
+    @Option(names = {"--wait-all"}, description = "Wait for the full timeout and list all scanners instead of using the first scanner found")
+    private boolean waitAll = false;
+
     @Option(names = {"-u", "--url"}, description = "URL to directly contact the scanner")
     private String scannerUrl = null;
 
@@ -70,65 +78,266 @@ public class SimpleScan implements Callable<Integer> {
     @Option(names = {"-r", "--resolution"}, description = "Resolution (Defaults to scanner default or highest possible resolution)")
     private Integer resolution;
 
+    @Option(names = {"-a", "--adf"}, description = "Scan all pages from the automatic document feeder. Pages are written to numbered files (output-001.jpg, ...), a printf pattern in the output filename (scan-%%04d.jpg) is used if present")
+    private boolean adf = false;
+
+    @Option(names = {"--duplex"}, description = "Scan both sides of each sheet from the automatic document feeder (implies --adf)")
+    private boolean duplex = false;
+
+    @Option(names = {"--duplex-order"}, description = "Order in which the scanner delivers duplex pages: ${COMPLETION-CANDIDATES} (Default: ${DEFAULT-VALUE})")
+    private DuplexOrder duplexOrder = DuplexOrder.INTERLEAVED;
+
     @Option(names = {"-c", "--colormode"}, description = "Color model to use (Defaults to scanner default, RGB24 if present or the first supported color mode)")
     private String colorMode;
 
-    private final DocumentBuilder db;
-    private final XPath xp;
+    @Option(names = {"--format"}, description = "Document format requested from the scanner: jpeg, png, pdf, tiff or a MIME type (Defaults to the format matching the output file extension, if supported)")
+    private String documentFormat;
 
-    public SimpleScan() {
-        try {
-            DocumentBuilderFactory dbf = DocumentBuilderFactory.newInstance();
-            dbf.setNamespaceAware(true);
-            db = dbf.newDocumentBuilder();
-            xp = XPathFactory.newInstance().newXPath();
-            xp.setNamespaceContext(new ScanNamespaceContext());
-        } catch (ParserConfigurationException ex) {
-            throw new RuntimeException("Failed to initializes XML", ex);
-        }
-    }
+    @Option(names = {"--optimize"}, description = "Choose document format and compression for: ${COMPLETION-CANDIDATES}")
+    private Optimize optimize;
 
-    public Integer call() throws Exception {
-        scanForScanner();
+    @Option(names = {"--page-budget"}, description = "Upper bound for the size of a page in bytes (suffix k or M allowed), the resolution is lowered to fit unless -r is given (implies --optimize size)")
+    private String pageBudget;
+
+    @Option(names = {"--auto-crop"}, description = "Scan a low resolution preview first and only scan the part of the platen covered by the original")
+    private boolean autoCrop = false;
+
+    @Option(names = {"--region"}, description = "Region to scan as x,y,width,height in millimeters, repeatable; each region is written to its own file")
+    private List<String> regions = new ArrayList<>();
+
+    @Option(names = {"--detect-regions"}, description = "Scan a low resolution preview first, detect the separate originals on the platen and write each one to its own file")
+    private boolean detectRegions = false;
+
+    @Option(names = {"--drop-blank"}, description = "Drop pages without content, the remaining pages are numbered without gaps")
+    private boolean dropBlank = false;
+
+    @Option(names = {"--blank-threshold"}, description = "Ink coverage in percent below which a page is considered blank (Default: ${DEFAULT-VALUE})")
+    private double blankThreshold = 0.5;
+
+    @Option(names = {"--fsync"}, description = "Flush output files to disk: ${COMPLETION-CANDIDATES} (Default: ${DEFAULT-VALUE})")
+    private SyncPolicy syncPolicy = SyncPolicy.NONE;
+
+    @Option(names = {"--connect-timeout"}, description = "Time in seconds to establish a connection (Default: ${DEFAULT-VALUE})")
+    private long connectTimeout = 10;
 
-        if (scannerUrl == null || scannerUrl.isEmpty()) {
-            System.err.println("No scanner found");
-            return 1;
+    @Option(names = {"--read-timeout"}, description = "Time in seconds to wait for an answer or for more data of a document (Default: ${DEFAULT-VALUE})")
+    private long readTimeout = 120;
+
+    @Option(names = {"--total-timeout"}, description = "Time in seconds a scan may take in total, 0 for no limit (Default: ${DEFAULT-VALUE})")
+    private long totalTimeout = 0;
+
+    @Option(names = {"--min-throughput"}, description = "Abort a document transfer slower than this many bytes per second (suffix k or M allowed) for the --stall-time")
+    private String minThroughput;
+
+    @Option(names = {"--stall-time"}, description = "Time in seconds the transfer rate may stay below --min-throughput (Default: ${DEFAULT-VALUE})")
+    private long stallTime = 30;
+
+    @Option(names = {"--resume"}, description = "Continue an interrupted scan from the document feeder into numbered files, the progress is kept in a journal next to the output file")
+    private boolean resume = false;
+
+    @Option(names = {"--timing"}, description = "Print the duration of each phase of the scan (discovery, capabilities, job creation, first byte, transfer)")
+    private boolean timing = false;
+
+    @Option(names = {"--metrics"}, description = "Write the phase durations and transferred bytes to this file after the run (serve: periodically)")
+    private Path metricsFile;
+
+    @Option(names = {"--metrics-format"}, description = "Format of the --metrics file: ${COMPLETION-CANDIDATES} (Default: JSON for .json files, else PROMETHEUS)")
+    private PhaseMetrics.Format metricsFormat;
+
+    @Option(names = {"--cache-ttl"}, description = "Time in seconds a cached discovery result is used before MDNS is queried again (Default: ${DEFAULT-VALUE})")
+    private long cacheTtl = 86400;
+
+    @Option(names = {"--no-cache"}, description = "Ignore cached data and always query the network")
+    private boolean noCache = false;
+
+    @Option(names = {"--capabilities-ttl"}, description = "Time in seconds cached capabilities are used without asking the scanner, if the scanner does not support conditional requests (Default: ${DEFAULT-VALUE})")
+    private long capabilitiesTtl = 86400;
+
+    private ScannerService scanner;
+    private EsclClient client;
+    private PrintStream stdout;
+
+    public Integer call() throws Exception {
+        if (isStdoutOutput()) {
+            // Standard output carries the scan, all messages go to stderr
+            stdout = System.out;
+            System.setOut(System.err);
         }
+        ScanEngine engine = createEngine();
+        JobJournal journal = null;
+        try {
+            if (resume) {
+                if (isStdoutOutput()) {
+                    System.err.println("A scan to standard output can not be resumed");
+                    return 1;
+                }
+                try {
+                    journal = JobJournal.load(JobJournal.fileFor(outputFile), syncPolicy);
+                } catch (NoSuchFileException ex) {
+                    System.err.println("No interrupted scan found for " + outputFile);
+                    return 1;
+                }
+                if (scannerUrl == null || scannerUrl.isBlank()) {
+                    scannerUrl = journal.getScannerUrl();
+                }
+            }
 
-        System.out.println("\nSelected scanner: " + scannerUrl);
+            scanForScanner(engine);
 
-        Capabilities c = getCapabilities();
+            if (scannerUrl == null || scannerUrl.isEmpty()) {
+                System.err.println("No scanner found");
+                return 1;
+            }
 
-        if(colorMode == null) {
-            if(c.getDefaultColorMode() != null && (! c.getDefaultColorMode().isBlank())) {
-                colorMode = c.getDefaultColorMode();
-            } else {
-                colorMode = c.getColorModes().contains("RGB24") ? "RGB24" : c.getColorModes().get(0);
+            System.out.println("\nSelected scanner: " + scannerUrl);
+
+            if (client == null) {
+                client = engine.getClient(scannerUrl);
             }
-        }
 
-        if(resolution == null) {
-            if(c.getDefaultResolution() != null) {
-                resolution = c.getDefaultResolution();
-            } else {
-                resolution = c.getMaxResolution();
+            Capabilities c = engine.getCapabilities(client, scanner);
+            printCapabilities(c);
+
+            ScanRequest request = new ScanRequest();
+            request.setAdf(adf);
+            request.setDuplex(duplex);
+            request.setDuplexOrder(duplexOrder);
+            request.setColorMode(colorMode);
+            request.setResolution(resolution);
+            request.setDocumentFormat(documentFormat);
+            // PDF output is assembled from the page images, unless PDF is
+            // forced with --format
+            request.setPreferredDocumentFormat(isPdfOutput() ? "jpeg" : extensionOf(outputFile));
+            request.setOptimize(optimize);
+
+            try {
+                for (String region : regions) {
+                    request.getRegions().add(parseRegion(region));
+                }
+            } catch (IllegalArgumentException ex) {
+                System.err.println(ex.getMessage());
+                return 1;
             }
-        }
 
-        if(! infoOnly) {
-            doScan(0, 0, c.getMaxWidth(), c.getMaxHeight(), colorMode, resolution, resolution);
+            if ((autoCrop || detectRegions) && (!infoOnly)) {
+                if (request.isMultiPage() || c.getPlaten() == null || (!request.getRegions().isEmpty())) {
+                    System.err.println("Automatic cropping and region detection require a scan of the whole platen");
+                    return 1;
+                }
+                List<ScanRegion> detected = detectRegions
+                    ? engine.detectObjectRegions(client, c.getPlaten())
+                    : new ArrayList<>();
+                if (autoCrop && (!detectRegions)) {
+                    ScanRegion region = engine.detectContentRegion(client, c.getPlaten());
+                    if (region != null) {
+                        detected.add(region);
+                    }
+                }
+                if (detected.isEmpty()) {
+                    System.out.println("\nNo content found on the platen, scanning the whole platen");
+                }
+                for (ScanRegion region : detected) {
+                    System.out.printf("%n%20s: %.2f x %.2f in at (%.2f, %.2f)", "Content region",
+                        region.getWidth() / 300d, region.getHeight() / 300d,
+                        region.getXOffset() / 300d, region.getYOffset() / 300d);
+                }
+                System.out.println();
+                request.getRegions().addAll(detected);
+            }
+
+            ScanSettings settings;
+            try {
+                request.setPageBudget(parseSize(pageBudget));
+                settings = engine.createSettings(c, request);
+            } catch (IllegalArgumentException ex) {
+                System.err.println(ex.getMessage());
+                return 1;
+            }
+
+            if (!infoOnly) {
+                if (resume) {
+                    if (!isJournaled(settings)) {
+                        System.err.println("Only scans from the document feeder into numbered files can be resumed");
+                        return 1;
+                    }
+                    if (!settings.toXml().equals(journal.getSettingsXml())) {
+                        System.err.println("Scan settings differ from the interrupted scan, start it again without --resume");
+                        return 1;
+                    }
+                    int recorded = journal.getPages();
+                    int valid = journal.verify();
+                    if (valid < recorded) {
+                        System.err.printf("Page %d of the interrupted scan is missing or modified, continuing from there%n", valid + 1);
+                    }
+                } else if (isJournaled(settings)) {
+                    journal = new JobJournal(JobJournal.fileFor(outputFile), syncPolicy);
+                }
+                doScan(engine, settings, journal);
+            }
+        } catch (TransferTimeoutException ex) {
+            // Journaled jobs are kept for --resume, the engine reports them
+            System.err.println(journal == null ? ex.getMessage() + ", scan job removed from scanner" : ex.getMessage());
+            return EXIT_TRANSFER_TIMEOUT;
+        } finally {
+            // Also reported for failed runs, these are the interesting ones
+            if (timing) {
+                engine.getMetrics().printSummary(System.out);
+            }
+            writeMetrics(engine.getMetrics());
+            engine.close();
         }
 
         return 0;
     }
 
-    private Capabilities getCapabilities() throws IOException {
-        Capabilities c = new Capabilities();
-        try (InputStream is = new URL(scannerUrl + "ScannerCapabilities").openStream()) {
-            c.parse(is, debug);
+    /**
+     * Write the metrics to the {@code --metrics} file, if one is set.
+     *
+     * @param metrics
+     */
+    void writeMetrics(PhaseMetrics metrics) {
+        if (metricsFile == null) {
+            return;
+        }
+        try {
+            metrics.write(metricsFile, getMetricsFormat());
+        } catch (IOException ex) {
+            System.err.println("Failed to write metrics to " + metricsFile + ": " + ex.getMessage());
         }
+    }
+
+    Path getMetricsFile() {
+        return metricsFile;
+    }
+
+    PhaseMetrics.Format getMetricsFormat() {
+        return metricsFormat != null ? metricsFormat : PhaseMetrics.Format.forFile(metricsFile);
+    }
+
+    ScanEngine createEngine() {
+        Long floor = parseSize(minThroughput);
+        return new ScanEngine(debug, !noCache, capabilitiesTtl,
+            Duration.ofSeconds(connectTimeout), Duration.ofSeconds(readTimeout),
+            Duration.ofSeconds(totalTimeout), floor == null ? 0 : floor, Duration.ofSeconds(stallTime));
+    }
+
+    boolean isDebug() {
+        return debug;
+    }
+
+    String getScannerUrl() {
+        return scannerUrl;
+    }
+
+    List<String> getMatch() {
+        return match;
+    }
+
+    int getTimeout() {
+        return timeout;
+    }
 
+    private static void printCapabilities(Capabilities c) {
         System.out.println("\nCapabilities");
         System.out.printf("%20s: %d%n", "Max Height", c.getMaxHeight());
         System.out.printf("%20s: %d%n", "Max Width", c.getMaxWidth());
@@ -138,137 +347,245 @@ public class SimpleScan implements Callable<Integer> {
         System.out.printf("%20s: %s%n", "Color modes", c.getColorModes());
         System.out.printf("%20s: %s%n", "Content types", c.getContentTypes());
         System.out.printf("%20s: %s%n", "Document formats", c.getDocumentFormats());
+        System.out.printf("%20s: %s%n", "Intents", c.getDefaultInputSource().getSupportedIntents());
+        if (c.getMakeAndModel() != null) {
+            System.out.printf("%20s: %s%n", "Make and model", c.getMakeAndModel());
+        }
+        if (c.getAdfSimplex() != null) {
+            System.out.printf("%20s: %s%n", "ADF", c.getAdfSimplex());
+        }
+        if (c.getAdfDuplex() != null) {
+            System.out.printf("%20s: %s%n", "ADF (duplex)", c.getAdfDuplex());
+        }
+        if (c.getCompressionFactorSupport() != null) {
+            System.out.printf("%20s: %s%n", "Compression factor", c.getCompressionFactorSupport());
+        }
+    }
 
-        return c;
+    private void doScan(ScanEngine engine, ScanSettings settings, JobJournal journal) throws IOException {
+        System.out.printf("%nBeginning scan (%s, %d, %d)%n", settings.getColorMode(), settings.getXResolution(), settings.getYResolution());
+
+        boolean multiPage = settings.getInputSource() == InputSource.FEEDER;
+        if (settings.getDocumentFormat() != null) {
+            System.out.printf("%20s: %s%n", "Document format", settings.getDocumentFormat());
+        }
+        if (settings.getCompressionFactor() != null) {
+            System.out.printf("%20s: %d%n", "Compression factor", settings.getCompressionFactor());
+        }
+        int regionCount = settings.getSliceRegions().isEmpty() ? settings.getRegions().size() : settings.getSliceRegions().size();
+        if (!settings.getSliceRegions().isEmpty()) {
+            System.out.printf("%20s: %d region(s) cut from one scan%n", "Regions", regionCount);
+        }
+        PageSink sink;
+        if (isStdoutOutput()) {
+            sink = new StreamPageSink(stdout);
+        } else if (isPdfOutput() && (!FormatNegotiation.PDF.equals(settings.getDocumentFormat()))) {
+            sink = new PdfPageSink(outputFile, settings.getXResolution(), settings.getYResolution(), syncPolicy);
+        } else {
+            FilePageSink fileSink = new FilePageSink(outputFile, multiPage || regionCount > 1, syncPolicy);
+            sink = journal == null ? fileSink : journal.record(fileSink);
+        }
+        BlankPageFilter blankPageFilter = null;
+        if (dropBlank) {
+            blankPageFilter = new BlankPageFilter(sink, blankThreshold / 100);
+            sink = blankPageFilter;
+        }
+        ScanResult result;
+        try {
+            result = engine.scan(client, settings, duplexOrder, sink, journal);
+        } catch (IOException ex) {
+            if (journal != null && Files.exists(journal.getFile())) {
+                System.err.printf("Scan interrupted after page %d, continue it with --resume%n", journal.getPages());
+            }
+            throw ex;
+        }
+        if (journal != null) {
+            journal.delete();
+        }
+        if (blankPageFilter != null && blankPageFilter.getDropped() > 0) {
+            System.out.printf("Dropped %d blank page(s)%n", blankPageFilter.getDropped());
+        }
+        if (multiPage) {
+            System.out.printf("Scanned %d page(s)%n", result.getPages());
+        }
+        System.out.printf("Transferred %d bytes in %d ms (%.1f KiB/s)%n",
+            result.getBytes(), result.getTransferMillis(), result.getBytesPerSecond() / 1024);
+        Long budget = parseSize(pageBudget);
+        if (budget != null && result.getLargestPage() > budget) {
+            System.err.printf("Largest page (%d bytes) exceeds the page budget of %d bytes%n", result.getLargestPage(), budget);
+        }
     }
 
     /**
-     * Unit for {@code xoffset}, {@code yoffset}, {@code width} and
-     * {@code height} have to be specified in threehundreth of inches.
-     *
-     * @param xoffset
-     * @param yoffset
-     * @param width
-     * @param height
-     * @param colorMode
-     * @param xresolution
-     * @param yresolution
+     * Parse a region given as {@code x,y,width,height} in millimeters.
+     */
+    static ScanRegion parseRegion(String value) {
+        String[] parts = value.split(",");
+        if (parts.length != 4) {
+            throw new IllegalArgumentException("Invalid region (expected x,y,width,height in mm): " + value);
+        }
+        int[] units = new int[4];
+        try {
+            for (int i = 0; i < 4; i++) {
+                units[i] = (int) Math.round(Double.parseDouble(parts[i].trim()) * 300 / 25.4);
+            }
+        } catch (NumberFormatException ex) {
+            throw new IllegalArgumentException("Invalid region (expected x,y,width,height in mm): " + value);
+        }
+        if (units[0] < 0 || units[1] < 0 || units[2] <= 0 || units[3] <= 0) {
+            throw new IllegalArgumentException("Invalid region (negative offset or empty size): " + value);
+        }
+        return new ScanRegion(units[0], units[1], units[2], units[3]);
+    }
+
+    /**
+     * @return {@code true} if the pages of the scan map one to one to output
+     * files, so that the scan can be checkpointed and resumed
      */
-    private void doScan(int xoffset, int yoffset, int width, int height, String colorMode, int xresolution, int yresolution) throws IOException {
-        System.out.printf("%nBeginning scan (%s, %d, %d)%n", colorMode, xresolution, yresolution);
+    private boolean isJournaled(ScanSettings settings) {
+        return settings.getInputSource() == InputSource.FEEDER
+            && (!isStdoutOutput())
+            && (!isPdfOutput() || FormatNegotiation.PDF.equals(settings.getDocumentFormat()))
+            && (!dropBlank)
+            && settings.getSliceRegions().isEmpty()
+            && (!(settings.isDuplex() && duplexOrder == DuplexOrder.FRONTS_FIRST));
+    }
+
+    private boolean isStdoutOutput() {
+        return "-".equals(outputFile.getPath());
+    }
+
+    private boolean isPdfOutput() {
+        return "pdf".equalsIgnoreCase(extensionOf(outputFile));
+    }
+
+    private static String extensionOf(File file) {
+        String name = file.getName();
+        int dot = name.lastIndexOf('.');
+        return dot < 0 ? null : name.substring(dot + 1);
+    }
 
+    /**
+     * Parse a size in bytes with an optional {@code k} or {@code M} suffix
+     * (1024 based).
+     */
+    static Long parseSize(String value) {
+        if (value == null || value.isBlank()) {
+            return null;
+        }
+        String trimmed = value.trim();
+        long factor = 1;
+        char suffix = Character.toLowerCase(trimmed.charAt(trimmed.length() - 1));
+        if (suffix == 'k') {
+            factor = 1024;
+        } else if (suffix == 'm') {
+            factor = 1024 * 1024;
+        }
+        if (factor != 1) {
+            trimmed = trimmed.substring(0, trimmed.length() - 1).trim();
+        }
         try {
-            // It would be better, if a real DOM implementation could be used
-            // here, but at least on a tested canon scanner invalid XML
-            // namespace behavior was observed. Instead of building the DOM
-            // "correctly", just build from a known working document
-            String request = String.format("<?xml version=\"1.0\" encoding=\"UTF-8\" ?>\n"
-                + "<scan:ScanSettings xmlns:scan=\"http://schemas.hp.com/imaging/escl/2011/05/03\" xmlns:pwg=\"http://www.pwg.org/schemas/2010/12/sm\">\n"
-                + "    <pwg:Version>2.6</pwg:Version>\n"
-                + "    <pwg:ScanRegions>\n"
-                + "        <pwg:ScanRegion>\n"
-                + "            <pwg:XOffset>%d</pwg:XOffset>\n"
-                + "            <pwg:YOffset>%d</pwg:YOffset>\n"
-                + "            <pwg:Width>%d</pwg:Width>\n"
-                + "            <pwg:Height>%d</pwg:Height>\n"
-                + "            <pwg:ContentRegionUnits>escl:ThreeHundredthsOfInches</pwg:ContentRegionUnits>\n"
-                + "        </pwg:ScanRegion>\n"
-                + "    </pwg:ScanRegions>\n"
-                + "    <scan:InputSource>Platten</scan:InputSource>\n"
-                + "    <scan:ColorMode>%s</scan:ColorMode>\n"
-                + "    <scan:XResolution>%d</scan:XResolution>\n"
-                + "    <scan:YResolution>%d</scan:YResolution>\n"
-                + "</scan:ScanSettings>",
-                xoffset,
-                yoffset,
-                width,
-                height,
-                colorMode,
-                xresolution,
-                yresolution);
-
-            URL url = new URL(scannerUrl + "ScanJobs");
-            HttpURLConnection httpUrlConnection = (HttpURLConnection) url.openConnection();
-
-            httpUrlConnection.setDoInput(true);
-            httpUrlConnection.setDoOutput(true);
-            httpUrlConnection.setRequestMethod("POST");
-            httpUrlConnection.setRequestProperty("Content-Type", "text/xml");
-
-            if (debug) {
-                System.err.println(SEPARATOR);
-                System.err.printf("%20s: %s%n", "URL", url.toExternalForm());
-                System.err.printf("%20s: %s%n", "Method", "POST");
-                System.err.printf("%20s: %n%s%n%n", "Body", request);
+            long size = Long.parseLong(trimmed) * factor;
+            if (size <= 0) {
+                throw new IllegalArgumentException("Size must be positive: " + value);
             }
+            return size;
+        } catch (NumberFormatException ex) {
+            throw new IllegalArgumentException("Invalid size: " + value);
+        }
+    }
 
-            try(OutputStream os = httpUrlConnection.getOutputStream()) {
-                os.write(request.getBytes(StandardCharsets.UTF_8));
-            } catch (IOException ex) {
-                try(InputStream is = httpUrlConnection.getErrorStream()) {
-                    if(is != null) {
-                        is.transferTo(System.err);
-                    }
-                }
-                throw ex;
+    private void scanForScanner(ScanEngine engine) throws IOException {
+        if (scannerUrl == null || scannerUrl.isBlank()) {
+            ScanEvents.Discovery event = new ScanEvents.Discovery();
+            event.begin();
+            long start = System.nanoTime();
+            try {
+                discoverScanner(engine, event);
+            } finally {
+                String label = scannerUrl == null ? "" : PhaseMetrics.scannerLabel(URI.create(scannerUrl));
+                event.scanner = label;
+                event.commit();
+                engine.getMetrics().record(PhaseMetrics.Phase.DISCOVERY, label, System.nanoTime() - start, 0);
             }
+        }
+    }
 
-            if (httpUrlConnection.getResponseCode() == 200) {
-                try (InputStream is = httpUrlConnection.getInputStream();
-                    FileOutputStream fos = new FileOutputStream(outputFile)) {
-                    if(debug) {
-                       System.out.println("Scan initialization return http status 200");
-                    }
-                    is.transferTo(fos);
-                } catch (IOException ex) {
-                    try (InputStream is = httpUrlConnection.getErrorStream()) {
-                        if (is != null) {
-                            is.transferTo(System.err);
-                        }
-                    }
-                    throw ex;
-                }
-            } else if (httpUrlConnection.getResponseCode() == 201) {
-                if(debug) {
-                    System.err.println("Location Header received: " + httpUrlConnection.getHeaderField("Location"));
-                }
-                try (InputStream is = new URL(httpUrlConnection.getHeaderField("Location") + "/NextDocument").openStream();
-                    FileOutputStream fos = new FileOutputStream(outputFile)) {
-                    is.transferTo(fos);
+    private void discoverScanner(ScanEngine engine, ScanEvents.Discovery event) throws IOException {
+        DiscoveryCache cache = new DiscoveryCache(CacheDirectory.get());
+        ServiceMatcher matcher = new ServiceMatcher(match);
+
+        if ((!noCache) && cacheTtl > 0) {
+            List<ScannerService> cached = new ArrayList<>();
+            for (ScannerService service : cache.load(cacheTtl)) {
+                if (matcher.test(service)) {
+                    cached.add(service);
                 }
+            }
+            String cachedUrl = cached.isEmpty() ? null : selectUrl(engine, cached.get(0));
+            EsclClient cachedClient = cachedUrl == null ? null : engine.getClient(cachedUrl);
+            if (cachedClient != null && EsclClient.await(cachedClient.probeAsync(PROBE_TIMEOUT))) {
+                System.out.println("Found scanner (cached): ");
+                printScanners(cached);
+                event.cached = true;
+                event.services = cached.size();
+                scanner = cached.get(0);
+                scannerUrl = cachedUrl;
+                // Keep the client, the connection used for the probe
+                // is reused for the following requests
+                client = cachedClient;
+                return;
+            } else if (debug && (!cached.isEmpty())) {
+                System.err.println("Cached scanner not reachable, falling back to MDNS");
+            }
+        }
 
-                System.out.println("Wrote scan to: " + outputFile);
+        List<ScannerService> services;
+        try (ScannerDiscovery discovery = new ScannerDiscovery()) {
+            if (waitAll) {
+                services = discovery.awaitAll(matcher, timeout * 1000L);
             } else {
-                throw new IOException("Scanner did not send http Status 200 or 201");
+                ScannerService first = discovery.awaitFirst(matcher, timeout * 1000L);
+                services = first == null ? Collections.emptyList() : Collections.singletonList(first);
             }
-        } catch (MalformedURLException ex) {
-            throw new IOException(ex);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while searching for scanner", ex);
         }
 
-    }
+        System.out.println("Found scanner: ");
+        printScanners(services);
+        event.services = services.size();
+        if (!services.isEmpty()) {
+            scanner = services.get(0);
+            scannerUrl = selectUrl(engine, scanner);
+        }
 
-    private void scanForScanner() throws IOException {
-        if (scannerUrl == null || scannerUrl.isBlank()) {
-            ServiceInfo[] services;
-            try (JmmDNS dns = JmmDNS.Factory.getInstance()) {
-                services = dns.list("_scanner._tcp.local.", timeout * 1000);
+        if ((!noCache) && cacheTtl > 0 && (!services.isEmpty())) {
+            try {
+                cache.update(services);
+            } catch (IOException ex) {
+                if (debug) {
+                    System.err.println("Failed to write discovery cache: " + ex.getMessage());
+                }
             }
+        }
+    }
 
-            System.out.println("Found scanner: ");
-            for (ServiceInfo si : services) {
-                Map<String, String> txtData = parseTxt(si.getTextBytes());
-                if (txtData.containsKey("mdl") && txtData.containsKey("mfg")) {
-                    System.out.println("\t" + txtData.get("mfg") + " " + txtData.get("mdl"));
-                } else if (txtData.containsKey("ty")) {
-                    System.out.println("\t" + txtData.get("ty"));
-                } else {
-                    System.out.println("\t" + si.getQualifiedName());
-                }
-                for (String host : si.getHostAddresses()) {
-                    String url = String.format("http://%s:%d/eSCL/", host, si.getPort());
-                    System.out.println("\t\t" + url);
-                    scannerUrl = url;
-                }
+    private static String selectUrl(ScanEngine engine, ScannerService service) throws IOException {
+        try {
+            return engine.selectUrl(service);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while probing scanner addresses", ex);
+        }
+    }
+
+    private static void printScanners(List<ScannerService> services) {
+        for (ScannerService service : services) {
+            System.out.println("\t" + service.getDisplayName());
+            for (String url : service.getUrls()) {
+                System.out.println("\t\t" + url);
             }
         }
     }
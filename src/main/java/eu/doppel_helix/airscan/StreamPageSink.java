@@ -0,0 +1,45 @@
+/*
+ * Copyright 2026 Matthias Bläsing
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.doppel_helix.airscan;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Writes the pages one after another into a stream, used for {@code -o -}
+ * to pipe the scan into another process. The stream is flushed after each
+ * page, so the consumer can start while the next page is scanned.
+ */
+public class StreamPageSink implements PageSink {
+
+    private final OutputStream out;
+
+    public StreamPageSink(OutputStream out) {
+        this.out = out;
+    }
+
+    @Override
+    public void write(Page page) throws IOException {
+        out.write(page.getData());
+        out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        out.flush();
+    }
+}
@@ -0,0 +1,87 @@
+/*
+ * Copyright 2026 Matthias Bläsing
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.doppel_helix.airscan;
+
+/**
+ * Range as reported by the scanner, for example in
+ * {@code CompressionFactorSupport}.
+ */
+public class SupportedRange {
+    private int min;
+    private int max;
+    private int normal;
+    private int step = 1;
+
+    public SupportedRange() {
+    }
+
+    public SupportedRange(int min, int max, int normal, int step) {
+        this.min = min;
+        this.max = max;
+        this.normal = normal;
+        this.step = step;
+    }
+
+    public int getMin() {
+        return min;
+    }
+
+    public void setMin(int min) {
+        this.min = min;
+    }
+
+    public int getMax() {
+        return max;
+    }
+
+    public void setMax(int max) {
+        this.max = max;
+    }
+
+    public int getNormal() {
+        return normal;
+    }
+
+    public void setNormal(int normal) {
+        this.normal = normal;
+    }
+
+    public int getStep() {
+        return step;
+    }
+
+    public void setStep(int step) {
+        this.step = step;
+    }
+
+    /**
+     * @param value
+     * @return {@code value} moved into the range and aligned to the step
+     */
+    public int clamp(int value) {
+        int clamped = Math.max(min, Math.min(max, value));
+        if (step > 1) {
+            clamped = min + ((clamped - min) / step) * step;
+        }
+        return clamped;
+    }
+
+    @Override
+    public String toString() {
+        return min + ".." + max + " (normal " + normal + ", step " + step + ")";
+    }
+}
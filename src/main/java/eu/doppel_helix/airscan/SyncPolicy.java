@@ -0,0 +1,37 @@
+/*
+ * Copyright 2026 Matthias Bläsing
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.doppel_helix.airscan;
+
+/**
+ * How far output files are flushed to the storage device before they are
+ * reported as written.
+ */
+public enum SyncPolicy {
+    /**
+     * Leave flushing to the operating system.
+     */
+    NONE,
+    /**
+     * Flush the file content before it is moved to its final name.
+     */
+    FILE,
+    /**
+     * Additionally flush the directory after the move, so that the new name
+     * survives a crash.
+     */
+    FULL
+}
@@ -0,0 +1,33 @@
+/*
+ * Copyright 2026 Matthias Bläsing
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.doppel_helix.airscan;
+
+import java.io.IOException;
+
+/**
+ * A transfer stalled, was too slow or the scan exceeded its total time
+ * limit. The scan job was removed from the scanner, retrying is expected to
+ * help.
+ */
+public class TransferTimeoutException extends IOException {
+
+    private static final long serialVersionUID = 1L;
+
+    public TransferTimeoutException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,226 @@
+/*
+ * Copyright 2026 Matthias Bläsing
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.doppel_helix.airscan;
+
+import java.io.Closeable;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Watches document transfers. A transfer is aborted if no data arrives for
+ * the read timeout or if the transfer rate stays below the throughput floor
+ * for a whole measuring window.
+ *
+ * <p>
+ * The HTTP client only applies its timeout until the response headers
+ * arrive, a scanner that stops sending in the middle of a document would
+ * block the reading thread forever. An aborted transfer closes the stream
+ * and interrupts the reading thread, which then fails with a
+ * {@link TransferTimeoutException}.</p>
+ */
+public class TransferWatchdog implements Closeable {
+
+    private static final long CHECK_INTERVAL_MILLIS = 500;
+
+    private final Duration readTimeout;
+    private final long minBytesPerSecond;
+    private final Duration window;
+    private final Set<Transfer> transfers = ConcurrentHashMap.newKeySet();
+    private final ScheduledThreadPoolExecutor timer;
+    private ScheduledFuture<?> check;
+
+    /**
+     * @param readTimeout maximum time without receiving data
+     * @param minBytesPerSecond throughput floor, {@code 0} disables the check
+     * @param window time the throughput has to stay below the floor
+     */
+    public TransferWatchdog(Duration readTimeout, long minBytesPerSecond, Duration window) {
+        this.readTimeout = readTimeout;
+        this.minBytesPerSecond = minBytesPerSecond;
+        this.window = window;
+        this.timer = new ScheduledThreadPoolExecutor(1, r -> {
+            Thread thread = new Thread(r, "airscan-watchdog");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.timer.setRemoveOnCancelPolicy(true);
+    }
+
+    /**
+     * Watch a response body. The stream has to be read and closed by the
+     * calling thread.
+     *
+     * @param in
+     * @return the watched stream
+     */
+    public InputStream watch(InputStream in) {
+        Transfer transfer = new Transfer(in, Thread.currentThread());
+        transfers.add(transfer);
+        synchronized (this) {
+            if (check == null) {
+                check = timer.scheduleWithFixedDelay(this::checkTransfers, CHECK_INTERVAL_MILLIS, CHECK_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+            }
+        }
+        return transfer;
+    }
+
+    /**
+     * Run an action once the time limit is reached.
+     *
+     * @param limit
+     * @param action
+     * @return handle to cancel the action
+     */
+    public ScheduledFuture<?> schedule(Duration limit, Runnable action) {
+        return timer.schedule(action, limit.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Abort all transfers read by the thread.
+     *
+     * @param thread
+     * @param reason
+     */
+    public void abort(Thread thread, String reason) {
+        for (Transfer transfer : transfers) {
+            if (transfer.reader == thread) {
+                transfer.abort(reason);
+            }
+        }
+    }
+
+    private void checkTransfers() {
+        long now = System.nanoTime();
+        for (Transfer transfer : transfers) {
+            long idle = now - transfer.lastProgress;
+            if (idle > readTimeout.toNanos()) {
+                transfer.abort(String.format("No data received from scanner for %d s", readTimeout.getSeconds()));
+                continue;
+            }
+            if (minBytesPerSecond <= 0) {
+                continue;
+            }
+            long elapsed = now - transfer.windowStart;
+            if (elapsed >= window.toNanos()) {
+                long bytes = transfer.bytes;
+                long rate = (long) ((bytes - transfer.windowBytes) * 1e9 / elapsed);
+                if (rate < minBytesPerSecond) {
+                    transfer.abort(String.format("Transfer rate %d B/s stayed below %d B/s for %d s",
+                        rate, minBytesPerSecond, window.getSeconds()));
+                } else {
+                    transfer.windowStart = now;
+                    transfer.windowBytes = bytes;
+                }
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        timer.shutdownNow();
+    }
+
+    private class Transfer extends FilterInputStream {
+        private final Thread reader;
+        private final long start = System.nanoTime();
+        private volatile long lastProgress = start;
+        private volatile long bytes;
+        // Only accessed by the watchdog thread
+        private long windowStart = start;
+        private long windowBytes;
+        private String abortReason;
+        private boolean closed;
+
+        Transfer(InputStream in, Thread reader) {
+            super(in);
+            this.reader = reader;
+        }
+
+        @Override
+        public int read() throws IOException {
+            try {
+                int result = super.read();
+                if (result >= 0) {
+                    progress(1);
+                }
+                return result;
+            } catch (IOException ex) {
+                throw translate(ex);
+            }
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            try {
+                int result = super.read(b, off, len);
+                if (result > 0) {
+                    progress(result);
+                }
+                return result;
+            } catch (IOException ex) {
+                throw translate(ex);
+            }
+        }
+
+        private void progress(int count) {
+            bytes += count;
+            lastProgress = System.nanoTime();
+        }
+
+        private synchronized void abort(String reason) {
+            if (closed || abortReason != null) {
+                return;
+            }
+            abortReason = reason;
+            try {
+                in.close();
+            } catch (IOException ex) {
+                // The reader is interrupted anyway
+            }
+            reader.interrupt();
+        }
+
+        private synchronized IOException translate(IOException ex) {
+            if (abortReason == null) {
+                return ex;
+            }
+            // Clear the interrupt, it was only used to wake up the reader
+            Thread.interrupted();
+            return new TransferTimeoutException(abortReason);
+        }
+
+        @Override
+        public void close() throws IOException {
+            synchronized (this) {
+                closed = true;
+                if (abortReason != null) {
+                    Thread.interrupted();
+                }
+            }
+            transfers.remove(this);
+            super.close();
+        }
+    }
+}
@@ -0,0 +1,190 @@
+/*
+ * Copyright 2026 Matthias Bläsing
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.doppel_helix.airscan;
+
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Read-only view of the TXT record of a DNS-SD service (RFC 6763 section 6).
+ * The record is a sequence of strings, each prefixed by an unsigned length
+ * byte, of the form {@code key=value} or just {@code key}.
+ *
+ * <p>
+ * Nothing is decoded up front: lookups walk the raw bytes and compare the
+ * keys byte-wise (ASCII, case-insensitive), only the value of a matching
+ * entry is decoded. Lookups that do not return a value do not allocate. If a
+ * key occurs more than once, the first occurrence is used. A length that
+ * runs past the end of the data ends the record.</p>
+ */
+public class TxtRecord {
+
+    public static final TxtRecord EMPTY = new TxtRecord(new byte[0]);
+
+    private final byte[] data;
+
+    /**
+     * @param data raw record, not copied, so it must not be modified
+     * afterwards
+     */
+    public TxtRecord(byte[] data) {
+        this.data = data == null ? EMPTY.data : data;
+    }
+
+    /**
+     * @param key
+     * @return {@code true} if the record contains the key, with or without
+     * value
+     */
+    public boolean contains(String key) {
+        return find(key) >= 0;
+    }
+
+    /**
+     * @param key
+     * @return {@code true} if the key is present with a value (which might
+     * be empty)
+     */
+    public boolean hasValue(String key) {
+        int offset = find(key);
+        return offset >= 0 && valueStart(offset, key) >= 0;
+    }
+
+    /**
+     * @param key
+     * @return the decoded value or {@code null} if the key is missing or
+     * has no value
+     */
+    public String get(String key) {
+        int offset = find(key);
+        if (offset < 0) {
+            return null;
+        }
+        int start = valueStart(offset, key);
+        if (start < 0) {
+            return null;
+        }
+        int end = offset + 1 + (data[offset] & 0xff);
+        return new String(data, start, end - start, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * @return number of entries
+     */
+    public int size() {
+        int count = 0;
+        for (int offset = 0; offset < data.length; offset = entryEnd(offset)) {
+            if (entryEnd(offset) > data.length) {
+                break;
+            }
+            if (data[offset] != 0) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    /**
+     * Decode all entries, for display and serialization. Entries without
+     * value are mapped to {@code null}, repeated keys are skipped.
+     *
+     * @return
+     */
+    public Map<String, String> toMap() {
+        Map<String, String> map = new LinkedHashMap<>();
+        for (int offset = 0; offset < data.length; offset = entryEnd(offset)) {
+            int end = entryEnd(offset);
+            if (end > data.length) {
+                break;
+            }
+            int start = offset + 1;
+            if (start == end) {
+                continue;
+            }
+            int eqPos = start;
+            while (eqPos < end && data[eqPos] != '=') {
+                eqPos++;
+            }
+            String key = new String(data, start, eqPos - start, StandardCharsets.UTF_8);
+            int first = find(key);
+            if (first >= 0 && first != offset) {
+                // Repeated key, possibly in a different case
+                continue;
+            }
+            String value = eqPos < end ? new String(data, eqPos + 1, end - eqPos - 1, StandardCharsets.UTF_8) : null;
+            map.put(key, value);
+        }
+        return map;
+    }
+
+    /**
+     * @param key
+     * @return offset of the length byte of the first entry with the key or
+     * -1
+     */
+    private int find(String key) {
+        int keyLength = key.length();
+        for (int offset = 0; offset < data.length; offset = entryEnd(offset)) {
+            int end = entryEnd(offset);
+            if (end > data.length) {
+                return -1;
+            }
+            int start = offset + 1;
+            if (end - start < keyLength || (end - start > keyLength && data[start + keyLength] != '=')) {
+                continue;
+            }
+            if (keyMatches(start, key)) {
+                return offset;
+            }
+        }
+        return -1;
+    }
+
+    private boolean keyMatches(int start, String key) {
+        for (int i = 0; i < key.length(); i++) {
+            int b = data[start + i] & 0xff;
+            char c = key.charAt(i);
+            if (b != c && toLowerAscii(b) != toLowerAscii(c)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private int valueStart(int offset, String key) {
+        int start = offset + 1 + key.length();
+        return start < entryEnd(offset) ? start + 1 : -1;
+    }
+
+    private int entryEnd(int offset) {
+        return offset + 1 + (data[offset] & 0xff);
+    }
+
+    private static int toLowerAscii(int c) {
+        return c >= 'A' && c <= 'Z' ? c + ('a' - 'A') : c;
+    }
+
+    @Override
+    public String toString() {
+        return toMap().toString();
+    }
+}
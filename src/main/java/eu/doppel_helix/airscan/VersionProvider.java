@@ -25,25 +25,28 @@ import picocli.CommandLine;
 
 public class VersionProvider implements CommandLine.IVersionProvider {
 
-    private static final Logger LOG = Logger.getLogger(VersionProvider.class.getName());
+    private String[] version;
 
-    private final String[] version;
+    @Override
+    public String[] getVersion() throws Exception {
+        // picocli creates the provider for every invocation, only read the
+        // properties (and initialize logging) if the version is requested
+        if (version == null) {
+            version = new String[]{loadVersion()};
+        }
+        return version;
+    }
 
-    public VersionProvider() {
+    private static String loadVersion() {
         Properties properties = new Properties();
         try (InputStream is = VersionProvider.class.getResourceAsStream("/META-INF/maven/eu.doppel_helix.cloudscan/cloudscan/pom.properties")) {
             if (is != null) {
                 properties.load(is);
             }
         } catch (IOException ex) {
-            LOG.log(Level.WARNING, null, ex);
+            Logger.getLogger(VersionProvider.class.getName()).log(Level.WARNING, null, ex);
         }
-        version = new String[]{properties.getProperty("version", "unknown")};
-    }
-
-    @Override
-    public String[] getVersion() throws Exception {
-        return version;
+        return properties.getProperty("version", "unknown");
     }
 
 }